@@ -1,5 +1,8 @@
 package com.quattrinh.shop.config;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -13,12 +16,24 @@ public class ApplicationProperties {
 
     private final Liquibase liquibase = new Liquibase();
 
+    private final Checkout checkout = new Checkout();
+
+    private final Catalog catalog = new Catalog();
+
     // jhipster-needle-application-properties-property
 
     public Liquibase getLiquibase() {
         return liquibase;
     }
 
+    public Checkout getCheckout() {
+        return checkout;
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
     // jhipster-needle-application-properties-property-getter
 
     public static class Liquibase {
@@ -33,5 +48,142 @@ public class ApplicationProperties {
             this.asyncStart = asyncStart;
         }
     }
+
+    public static class Checkout {
+
+        private final Async async = new Async();
+
+        public Async getAsync() {
+            return async;
+        }
+
+        public static class Async {
+
+            private boolean enabled = false;
+
+            private int queueCapacity = 1000;
+
+            private int workers = 2;
+
+            private int batchSize = 20;
+
+            private long ticketTimeToLiveSeconds = 3600;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getWorkers() {
+                return workers;
+            }
+
+            public void setWorkers(int workers) {
+                this.workers = workers;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getTicketTimeToLiveSeconds() {
+                return ticketTimeToLiveSeconds;
+            }
+
+            public void setTicketTimeToLiveSeconds(long ticketTimeToLiveSeconds) {
+                this.ticketTimeToLiveSeconds = ticketTimeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class Catalog {
+
+        /**
+         * How {@code GET /api/products/with-variants?search=} finds products.
+         */
+        public enum SearchStrategy {
+            /** In-memory inverted index of each node, falling back to {@code LIKE} until it is built. */
+            INDEX,
+            /** {@code LIKE '%term%'} on name and description. */
+            LIKE,
+            /** PostgreSQL full-text search on the {@code search_vector} column, ranked by {@code ts_rank}. */
+            FULL_TEXT,
+            /** PostgreSQL {@code pg_trgm} indexes on name and description, ranked by name similarity. */
+            TRIGRAM,
+        }
+
+        private boolean skipTotalCount = false;
+
+        private SearchStrategy searchStrategy = SearchStrategy.INDEX;
+
+        private long trendHalfLifeHours = 72;
+
+        private long homeCacheTtlSeconds = 60;
+
+        private List<BigDecimal> facetPriceBounds = new ArrayList<>(
+            List.of(
+                new BigDecimal("100000"),
+                new BigDecimal("200000"),
+                new BigDecimal("500000"),
+                new BigDecimal("1000000"),
+                new BigDecimal("2000000")
+            )
+        );
+
+        public boolean isSkipTotalCount() {
+            return skipTotalCount;
+        }
+
+        public void setSkipTotalCount(boolean skipTotalCount) {
+            this.skipTotalCount = skipTotalCount;
+        }
+
+        public SearchStrategy getSearchStrategy() {
+            return searchStrategy;
+        }
+
+        public void setSearchStrategy(SearchStrategy searchStrategy) {
+            this.searchStrategy = searchStrategy;
+        }
+
+        public long getTrendHalfLifeHours() {
+            return trendHalfLifeHours;
+        }
+
+        public void setTrendHalfLifeHours(long trendHalfLifeHours) {
+            this.trendHalfLifeHours = trendHalfLifeHours;
+        }
+
+        public long getHomeCacheTtlSeconds() {
+            return homeCacheTtlSeconds;
+        }
+
+        public void setHomeCacheTtlSeconds(long homeCacheTtlSeconds) {
+            this.homeCacheTtlSeconds = homeCacheTtlSeconds;
+        }
+
+        public List<BigDecimal> getFacetPriceBounds() {
+            return facetPriceBounds;
+        }
+
+        public void setFacetPriceBounds(List<BigDecimal> facetPriceBounds) {
+            this.facetPriceBounds = facetPriceBounds;
+        }
+    }
     // jhipster-needle-application-properties-property-class
 }
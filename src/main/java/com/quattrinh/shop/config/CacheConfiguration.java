@@ -65,6 +65,10 @@ public class CacheConfiguration {
             createCache(cm, com.quattrinh.shop.domain.OrderItem.class.getName());
             createCache(cm, com.quattrinh.shop.domain.Payment.class.getName());
             createCache(cm, com.quattrinh.shop.domain.ChatbotLog.class.getName());
+            createCache(cm, com.quattrinh.shop.service.CheckoutIdempotencyService.ORDER_ID_BY_KEY_CACHE);
+            createCache(cm, com.quattrinh.shop.service.ProductDetailService.PRODUCT_DETAIL_CACHE);
+            createCache(cm, com.quattrinh.shop.service.ProductReviewService.PRODUCT_REVIEWS_CACHE);
+            createCache(cm, com.quattrinh.shop.service.ProductVariantMatrixService.VARIANT_MATRIX_CACHE);
             // jhipster-needle-ehcache-add-entry
         };
     }
@@ -1,5 +1,9 @@
 package com.quattrinh.shop.config;
 
+import com.quattrinh.shop.management.JdbcStatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -9,4 +13,10 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableJpaRepositories({ "com.quattrinh.shop.repository" })
 @EnableJpaAuditing(auditorAwareRef = "springSecurityAuditorAware")
 @EnableTransactionManagement
-public class DatabaseConfiguration {}
+public class DatabaseConfiguration {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new JdbcStatementCounter());
+    }
+}
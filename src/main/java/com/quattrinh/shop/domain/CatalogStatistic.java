@@ -0,0 +1,82 @@
+package com.quattrinh.shop.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A CatalogStatistic, one of the counters behind the product statistics of the home page.
+ */
+@Entity
+@Table(name = "catalog_statistics")
+public class CatalogStatistic implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The counters.
+     */
+    public enum Name {
+        ACTIVE_PRODUCTS,
+        ACTIVE_CATEGORIES,
+        /** Sum of the ratings of all reviews. */
+        RATING_SUM,
+        /** Number of reviews with a rating. */
+        RATING_COUNT,
+        /** Number of distinct users with a completed order. */
+        CUSTOMERS,
+        REGISTERED_USERS,
+    }
+
+    @NotNull
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "name", length = 50, nullable = false)
+    private Name name;
+
+    @NotNull
+    @Column(name = "total", nullable = false)
+    private Long total;
+
+    public Name getName() {
+        return this.name;
+    }
+
+    public void setName(Name name) {
+        this.name = name;
+    }
+
+    public Long getTotal() {
+        return this.total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CatalogStatistic)) {
+            return false;
+        }
+        return getName() != null && getName().equals(((CatalogStatistic) o).getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getName());
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CatalogStatistic{" +
+            "name=" + getName() +
+            ", total=" + getTotal() +
+            "}";
+    }
+}
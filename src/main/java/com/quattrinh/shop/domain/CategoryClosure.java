@@ -0,0 +1,131 @@
+package com.quattrinh.shop.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A CategoryClosure, one ancestor-descendant pair of the category tree. Every category is its own ancestor at depth
+ * 0, so the subtree of a category is the descendants of its rows.
+ */
+@Entity
+@Table(name = "category_closure")
+@IdClass(CategoryClosure.Key.class)
+public class CategoryClosure implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    @Id
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+
+    @NotNull
+    @Id
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+
+    @NotNull
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+
+    public Long getAncestorId() {
+        return this.ancestorId;
+    }
+
+    public void setAncestorId(Long ancestorId) {
+        this.ancestorId = ancestorId;
+    }
+
+    public Long getDescendantId() {
+        return this.descendantId;
+    }
+
+    public void setDescendantId(Long descendantId) {
+        this.descendantId = descendantId;
+    }
+
+    public Integer getDepth() {
+        return this.depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryClosure)) {
+            return false;
+        }
+        CategoryClosure other = (CategoryClosure) o;
+        return (
+            getAncestorId() != null &&
+            getAncestorId().equals(other.getAncestorId()) &&
+            Objects.equals(getDescendantId(), other.getDescendantId())
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getAncestorId(), getDescendantId());
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CategoryClosure{" +
+            "ancestorId=" + getAncestorId() +
+            ", descendantId=" + getDescendantId() +
+            ", depth=" + getDepth() +
+            "}";
+    }
+
+    /**
+     * The identifier of a {@link CategoryClosure}.
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long ancestorId;
+
+        private Long descendantId;
+
+        public Key() {}
+
+        public Key(Long ancestorId, Long descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        public Long getAncestorId() {
+            return ancestorId;
+        }
+
+        public Long getDescendantId() {
+            return descendantId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(ancestorId, other.ancestorId) && Objects.equals(descendantId, other.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestorId, descendantId);
+        }
+    }
+}
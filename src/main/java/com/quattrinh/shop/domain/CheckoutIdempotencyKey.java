@@ -0,0 +1,106 @@
+package com.quattrinh.shop.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A CheckoutIdempotencyKey, remembering which order was created for an {@code Idempotency-Key} sent on checkout.
+ */
+@Entity
+@Table(name = "checkout_idempotency_keys")
+public class CheckoutIdempotencyKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    @Size(max = 100)
+    @Id
+    @Column(name = "idempotency_key", length = 100, nullable = false)
+    private String idempotencyKey;
+
+    @NotNull
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Size(max = 64)
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    public String getIdempotencyKey() {
+        return this.idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Long getUserId() {
+        return this.userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getOrderId() {
+        return this.orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Instant getCreatedAt() {
+        return this.createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getRequestHash() {
+        return this.requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CheckoutIdempotencyKey)) {
+            return false;
+        }
+        return getIdempotencyKey() != null && getIdempotencyKey().equals(((CheckoutIdempotencyKey) o).getIdempotencyKey());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getIdempotencyKey());
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CheckoutIdempotencyKey{" +
+            "idempotencyKey='" + getIdempotencyKey() + "'" +
+            ", userId=" + getUserId() +
+            ", orderId=" + getOrderId() +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", requestHash='" + getRequestHash() + "'" +
+            "}";
+    }
+}
@@ -20,7 +20,8 @@ public class OrderItem extends AbstractAuditingEntity<Long> implements Serializa
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orderItemSequenceGenerator")
+    @SequenceGenerator(name = "orderItemSequenceGenerator", sequenceName = "order_items_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
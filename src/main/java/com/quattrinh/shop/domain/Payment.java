@@ -23,7 +23,8 @@ public class Payment extends AbstractAuditingEntity<Long> implements Serializabl
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "paymentSequenceGenerator")
+    @SequenceGenerator(name = "paymentSequenceGenerator", sequenceName = "payments_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -43,6 +43,35 @@ public class Product extends AbstractAuditingEntity<Long> {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
 
+    /*
+     * Rating aggregates of the reviews of the product. They are only written by the bulk updates of
+     * ProductRepository, so that saving a product never overwrites a concurrent change of its reviews.
+     */
+
+    @Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+    private Integer ratingCount = 0;
+
+    @Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+    private Long ratingSum = 0L;
+
+    @Column(name = "average_rating", precision = 3, scale = 2, nullable = false, insertable = false, updatable = false)
+    private BigDecimal averageRating = BigDecimal.ZERO;
+
+    @Column(name = "rating_1_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", nullable = false, insertable = false, updatable = false)
+    private Integer rating5Count = 0;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "products__categories",
@@ -186,6 +215,87 @@ public class Product extends AbstractAuditingEntity<Long> {
         this.isActive = isActive;
     }
 
+    public Integer getRatingCount() {
+        return this.ratingCount;
+    }
+
+    public void setRatingCount(Integer ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public Long getRatingSum() {
+        return this.ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public BigDecimal getAverageRating() {
+        return this.averageRating;
+    }
+
+    public void setAverageRating(BigDecimal averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public Integer getRating1Count() {
+        return this.rating1Count;
+    }
+
+    public void setRating1Count(Integer rating1Count) {
+        this.rating1Count = rating1Count;
+    }
+
+    public Integer getRating2Count() {
+        return this.rating2Count;
+    }
+
+    public void setRating2Count(Integer rating2Count) {
+        this.rating2Count = rating2Count;
+    }
+
+    public Integer getRating3Count() {
+        return this.rating3Count;
+    }
+
+    public void setRating3Count(Integer rating3Count) {
+        this.rating3Count = rating3Count;
+    }
+
+    public Integer getRating4Count() {
+        return this.rating4Count;
+    }
+
+    public void setRating4Count(Integer rating4Count) {
+        this.rating4Count = rating4Count;
+    }
+
+    public Integer getRating5Count() {
+        return this.rating5Count;
+    }
+
+    public void setRating5Count(Integer rating5Count) {
+        this.rating5Count = rating5Count;
+    }
+
+    /**
+     * Copy the rating aggregates of another instance of this product, such as the managed one being replaced by a
+     * merge, which must not cache the defaults of a new instance.
+     *
+     * @param product the other instance.
+     */
+    public void copyRatings(Product product) {
+        this.ratingCount = product.ratingCount;
+        this.ratingSum = product.ratingSum;
+        this.averageRating = product.averageRating;
+        this.rating1Count = product.rating1Count;
+        this.rating2Count = product.rating2Count;
+        this.rating3Count = product.rating3Count;
+        this.rating4Count = product.rating4Count;
+        this.rating5Count = product.rating5Count;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -215,6 +325,8 @@ public class Product extends AbstractAuditingEntity<Long> {
             ", basePrice=" + getBasePrice() +
             ", imageUrl='" + getImageUrl() + "'" +
             ", isActive=" + getIsActive() +
+            ", ratingCount=" + getRatingCount() +
+            ", averageRating=" + getAverageRating() +
             "}";
     }
 }
@@ -21,7 +21,8 @@ public class ProductVariant extends AbstractAuditingEntity<Long> {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productVariantSequenceGenerator")
+    @SequenceGenerator(name = "productVariantSequenceGenerator", sequenceName = "product_variants_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
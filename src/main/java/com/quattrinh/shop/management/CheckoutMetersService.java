@@ -0,0 +1,38 @@
+package com.quattrinh.shop.management;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CheckoutMetersService {
+
+    public static final String CHECKOUT_STATEMENTS_METER_NAME = "checkout.statements";
+    public static final String CHECKOUT_STATEMENTS_METER_DESCRIPTION = "Number of SQL statements issued by one checkout.";
+    public static final String CHECKOUT_STATEMENTS_METER_BASE_UNIT = "statements";
+
+    private final DistributionSummary checkoutStatements;
+
+    public CheckoutMetersService(MeterRegistry registry) {
+        this.checkoutStatements = DistributionSummary.builder(CHECKOUT_STATEMENTS_METER_NAME)
+            .baseUnit(CHECKOUT_STATEMENTS_METER_BASE_UNIT)
+            .description(CHECKOUT_STATEMENTS_METER_DESCRIPTION)
+            .register(registry);
+    }
+
+    /**
+     * Run a checkout and record the number of SQL statements it issued, including the ones flushed on commit.
+     *
+     * @param checkout the checkout to run, it must open and commit its own transaction.
+     * @return the checkout result.
+     */
+    public <T> T trackStatements(Supplier<T> checkout) {
+        JdbcStatementCounter.begin();
+        try {
+            return checkout.get();
+        } finally {
+            this.checkoutStatements.record(JdbcStatementCounter.end());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.quattrinh.shop.management;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate {@link StatementInspector} counting the SQL statements prepared by the current thread.
+ * <p>
+ * Counting only happens between {@link #begin()} and {@link #end()}, so the inspector costs a single
+ * {@link ThreadLocal} lookup for every other statement.
+ */
+public class JdbcStatementCounter implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    /**
+     * Start counting the statements prepared by the current thread.
+     */
+    public static void begin() {
+        COUNT.set(new long[1]);
+    }
+
+    /**
+     * Stop counting for the current thread.
+     *
+     * @return the number of statements prepared since {@link #begin()}, or {@code 0} when counting was not started.
+     */
+    public static long end() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -43,4 +43,9 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long>, JpaSp
 
     @Query("select cartItem from CartItem cartItem where cartItem.cart.id = :cartId")
     List<CartItem> findByCartId(@Param("cartId") Long cartId);
+
+    @Query(
+        "select cartItem from CartItem cartItem join fetch cartItem.variant where cartItem.cart.user.id = :userId and cartItem.id in :ids order by cartItem.variant.id"
+    )
+    List<CartItem> findSelectedByUserIdWithVariant(@Param("userId") Long userId, @Param("ids") List<Long> ids);
 }
@@ -0,0 +1,25 @@
+package com.quattrinh.shop.repository;
+
+import com.quattrinh.shop.domain.CatalogStatistic;
+import jakarta.persistence.LockModeType;
+import java.util.List;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the CatalogStatistic entity.
+ */
+@Repository
+public interface CatalogStatisticRepository extends JpaRepository<CatalogStatistic, CatalogStatistic.Name> {
+    @Modifying
+    @Query("update CatalogStatistic s set s.total = s.total + :delta where s.name = :name")
+    int increment(@Param("name") CatalogStatistic.Name name, @Param("delta") long delta);
+
+    /**
+     * Lock all the counters, so that no increment runs until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from CatalogStatistic s")
+    List<CatalogStatistic> findAllForUpdate();
+}
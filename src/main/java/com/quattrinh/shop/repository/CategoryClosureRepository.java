@@ -0,0 +1,45 @@
+package com.quattrinh.shop.repository;
+
+import com.quattrinh.shop.domain.CategoryClosure;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the CategoryClosure entity.
+ * <p>
+ * A subtree is attached and detached with one statement each, whatever its size.
+ */
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, CategoryClosure.Key> {
+    boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+    /**
+     * Add a new category as its own ancestor.
+     */
+    @Modifying
+    @Query("insert into CategoryClosure (ancestorId, descendantId, depth) values (:id, :id, 0)")
+    int insertSelf(@Param("id") Long id);
+
+    /**
+     * Link the subtree of a category to the ancestors of its new parent, the parent included.
+     */
+    @Modifying
+    @Query(
+        "insert into CategoryClosure (ancestorId, descendantId, depth) " +
+        "select above.ancestorId, below.descendantId, above.depth + below.depth + 1 " +
+        "from CategoryClosure above, CategoryClosure below where above.descendantId = :parentId and below.ancestorId = :id"
+    )
+    int attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    /**
+     * Unlink the subtree of a category from the ancestors of the category, keeping the links inside the subtree.
+     */
+    @Modifying
+    @Query(
+        "delete from CategoryClosure link " +
+        "where link.descendantId in (select below.descendantId from CategoryClosure below where below.ancestorId = :id) " +
+        "and link.ancestorId not in (select below.descendantId from CategoryClosure below where below.ancestorId = :id)"
+    )
+    int detachSubtree(@Param("id") Long id);
+}
@@ -1,8 +1,10 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.Category;
+import jakarta.persistence.LockModeType;
 import java.util.List;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -31,4 +33,50 @@ public interface CategoryRepository extends JpaRepository<Category, Long>, JpaSp
      * @return list of active categories
      */
     List<Category> findByIsActiveTrue();
+
+    /**
+     * Count the active products of each category.
+     *
+     * @return rows of category id and number of active products
+     */
+    @Query(
+        "select category.id, count(product) from Category category join category.products product where product.isActive = true group by category.id"
+    )
+    List<Object[]> countActiveProductsGroupByCategoryId();
+
+    long countByIsActiveTrue();
+
+    /**
+     * @return rows of id, name, image, activity and parent id of all categories, by id.
+     */
+    @Query(
+        "select category.id, category.name, category.image, category.isActive, parent.id from Category category " +
+        "left join category.parentCategory parent order by category.id"
+    )
+    List<Object[]> findAllTreeRows();
+
+    /**
+     * Count the products directly in each category, whether active or not.
+     *
+     * @return rows of category id and number of products
+     */
+    @Query("select category.id, count(product) from Product product join product.categories category group by category.id")
+    List<Object[]> countProductsGroupByCategoryId();
+
+    /**
+     * Lock a category and the ancestors of its new parent, the parent included, in id order so that concurrent moves
+     * wait for each other instead of deadlocking. Two moves forming a cycle both lock the category moved by the other,
+     * so the second one sees the first committed when it checks for a cycle.
+     *
+     * @param id the id of the moved category.
+     * @param parentId the id of its new parent.
+     * @return the ids of the locked categories.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(
+        "select category.id from Category category where category.id = :id " +
+        "or category.id in (select closure.ancestorId from CategoryClosure closure where closure.descendantId = :parentId) " +
+        "order by category.id"
+    )
+    List<Long> lockIdsForMove(@Param("id") Long id, @Param("parentId") Long parentId);
 }
@@ -0,0 +1,42 @@
+package com.quattrinh.shop.repository;
+
+import com.quattrinh.shop.domain.CheckoutIdempotencyKey;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data JPA repository for the CheckoutIdempotencyKey entity.
+ */
+@Repository
+public interface CheckoutIdempotencyKeyRepository extends JpaRepository<CheckoutIdempotencyKey, String> {
+    /**
+     * Claim a key. A concurrent transaction inserting the same key blocks on the primary key until this one ends,
+     * then fails with a unique violation if it committed.
+     */
+    @Modifying
+    @Query(
+        value = "insert into checkout_idempotency_keys (idempotency_key, user_id, created_at, request_hash) " +
+        "values (:key, :userId, :createdAt, :requestHash)",
+        nativeQuery = true
+    )
+    int insertKey(
+        @Param("key") String key,
+        @Param("userId") Long userId,
+        @Param("createdAt") Instant createdAt,
+        @Param("requestHash") String requestHash
+    );
+
+    @Modifying
+    @Query("update CheckoutIdempotencyKey k set k.orderId = :orderId where k.idempotencyKey = :key")
+    int assignOrder(@Param("key") String key, @Param("orderId") Long orderId);
+
+    @Query("select k from CheckoutIdempotencyKey k where k.idempotencyKey = :key and k.orderId is not null")
+    Optional<CheckoutIdempotencyKey> findCompletedByKey(@Param("key") String key);
+
+    @Modifying
+    @Query("delete from CheckoutIdempotencyKey k where k.createdAt < :before")
+    int deleteByCreatedAtBefore(@Param("before") Instant before);
+}
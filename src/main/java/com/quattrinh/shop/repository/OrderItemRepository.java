@@ -1,6 +1,9 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.OrderItem;
+import com.quattrinh.shop.domain.enumeration.OrderStatus;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -45,4 +48,42 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, Jpa
 
     @Query("select orderItem from OrderItem orderItem where orderItem.order.id = :orderId")
     List<OrderItem> findByOrderId(@Param("orderId") Long orderId);
+
+    @Query(
+        "select orderItem.variant.product.id, sum(orderItem.quantity) from OrderItem orderItem group by orderItem.variant.product.id"
+    )
+    List<Object[]> sumQuantityGroupByProductId();
+
+    /**
+     * Units sold and revenue of each product over the orders with the given status.
+     *
+     * @return rows of product id, quantity and amount.
+     */
+    @Query(
+        "select orderItem.variant.product.id, sum(orderItem.quantity), sum(orderItem.quantity * coalesce(orderItem.price, 0)) " +
+        "from OrderItem orderItem where orderItem.order.status = :status group by orderItem.variant.product.id"
+    )
+    List<Object[]> sumSalesGroupByProductId(@Param("status") OrderStatus status);
+
+    /**
+     * Units sold and revenue of each product over the given orders.
+     *
+     * @return rows of product id, quantity and amount.
+     */
+    @Query(
+        "select orderItem.variant.product.id, sum(orderItem.quantity), sum(orderItem.quantity * coalesce(orderItem.price, 0)) " +
+        "from OrderItem orderItem where orderItem.order.id in :orderIds group by orderItem.variant.product.id"
+    )
+    List<Object[]> sumSalesByOrderIdsGroupByProductId(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * The items of the orders with the given status last updated since an instant.
+     *
+     * @return rows of product id, update instant of the order and quantity.
+     */
+    @Query(
+        "select orderItem.variant.product.id, orderItem.order.updatedAt, orderItem.quantity from OrderItem orderItem " +
+        "where orderItem.order.status = :status and orderItem.order.updatedAt >= :since"
+    )
+    List<Object[]> findSalesUpdatedSince(@Param("status") OrderStatus status, @Param("since") Instant since);
 }
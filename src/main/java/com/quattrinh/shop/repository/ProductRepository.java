@@ -1,11 +1,15 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.Product;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -43,16 +47,114 @@ public interface ProductRepository
     )
     Page<Product> findAllActiveWithSearch(Pageable pageable, String search);
 
-    // New methods for home page product filtering (separate from admin APIs)
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.id DESC")
-    Page<Product> findNewProducts(Pageable pageable);
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = true")
+    List<Long> findAllActiveIds();
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.id ASC")
-    Page<Product> findBestSellerProducts(Pageable pageable);
+    @Query("SELECT p.id, p.name FROM Product p WHERE p.isActive = true")
+    List<Object[]> findAllActiveIdAndName();
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.id DESC")
-    Page<Product> findTrendProducts(Pageable pageable);
+    @Query("SELECT p.id, p.name, p.description FROM Product p WHERE p.isActive = true")
+    List<Object[]> findAllActiveIdNameAndDescription();
 
-    @Query("SELECT p FROM Product p WHERE p.isActive = true ORDER BY p.id ASC")
-    Page<Product> findFeaturedProducts(Pageable pageable);
+    @Query("SELECT p.id, p.basePrice FROM Product p WHERE p.isActive = true")
+    List<Object[]> findAllActiveIdAndBasePrice();
+
+    @Query("SELECT p.id, c.id FROM Product p JOIN p.categories c WHERE p.isActive = true")
+    List<Object[]> findAllActiveCategoryIds();
+
+    long countByIsActiveTrue();
+
+    /**
+     * Catalog grid rows of products, in no particular order. The price range and the availability are computed over
+     * the active variants, without loading them.
+     */
+    @Query(
+        "SELECT p.id AS id, p.name AS name, p.imageUrl AS imageUrl, p.basePrice AS basePrice, " +
+        "MIN(v.price) AS minPrice, MAX(v.price) AS maxPrice, " +
+        "CASE WHEN MAX(COALESCE(v.stock, 0) - COALESCE(v.reserved, 0)) > 0 THEN true ELSE false END AS inStock, " +
+        "p.averageRating AS averageRating, p.ratingCount AS ratingCount " +
+        "FROM Product p LEFT JOIN p.variants v ON v.isActive = true WHERE p.id IN :ids " +
+        "GROUP BY p.id, p.name, p.imageUrl, p.basePrice, p.averageRating, p.ratingCount"
+    )
+    List<ListingRow> findListingRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * @return rows of product id, category id and category name.
+     */
+    @Query("SELECT p.id, c.id, c.name FROM Product p JOIN p.categories c WHERE p.id IN :ids")
+    List<Object[]> findCategoryNamesByProductIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p ORDER BY p.id")
+    List<Long> findAllIds();
+
+    /**
+     * Lock products, so that no change of their rating aggregates runs until the transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Add a rating to the aggregates of a product, or remove it with a negative delta. The update is relative to the
+     * current values, so concurrent changes of the reviews of a product are all counted.
+     *
+     * @param productId the id of the product.
+     * @param rating the rating, from 1 to 5.
+     * @param delta 1 to add the rating, -1 to remove it.
+     * @return the number of updated products.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(
+        "update Product p set p.ratingCount = p.ratingCount + :delta, p.ratingSum = p.ratingSum + :delta * :rating, " +
+        "p.averageRating = case when p.ratingCount + :delta > 0 " +
+        "then cast((p.ratingSum + :delta * :rating) as BigDecimal) / (p.ratingCount + :delta) else 0 end, " +
+        "p.rating1Count = p.rating1Count + case when :rating = 1 then :delta else 0 end, " +
+        "p.rating2Count = p.rating2Count + case when :rating = 2 then :delta else 0 end, " +
+        "p.rating3Count = p.rating3Count + case when :rating = 3 then :delta else 0 end, " +
+        "p.rating4Count = p.rating4Count + case when :rating = 4 then :delta else 0 end, " +
+        "p.rating5Count = p.rating5Count + case when :rating = 5 then :delta else 0 end " +
+        "where p.id = :productId"
+    )
+    int addRating(@Param("productId") Long productId, @Param("rating") int rating, @Param("delta") int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query(
+        "update Product p set p.ratingCount = :ratingCount, p.ratingSum = :ratingSum, p.averageRating = :averageRating, " +
+        "p.rating1Count = :rating1Count, p.rating2Count = :rating2Count, p.rating3Count = :rating3Count, " +
+        "p.rating4Count = :rating4Count, p.rating5Count = :rating5Count where p.id = :productId"
+    )
+    int setRatings(
+        @Param("productId") Long productId,
+        @Param("ratingCount") int ratingCount,
+        @Param("ratingSum") long ratingSum,
+        @Param("averageRating") BigDecimal averageRating,
+        @Param("rating1Count") int rating1Count,
+        @Param("rating2Count") int rating2Count,
+        @Param("rating3Count") int rating3Count,
+        @Param("rating4Count") int rating4Count,
+        @Param("rating5Count") int rating5Count
+    );
+
+    /**
+     * A product of a catalog grid.
+     */
+    interface ListingRow {
+        Long getId();
+
+        String getName();
+
+        String getImageUrl();
+
+        BigDecimal getBasePrice();
+
+        BigDecimal getMinPrice();
+
+        BigDecimal getMaxPrice();
+
+        Boolean getInStock();
+
+        BigDecimal getAverageRating();
+
+        Integer getRatingCount();
+    }
 }
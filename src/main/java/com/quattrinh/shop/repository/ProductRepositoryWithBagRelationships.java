@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 public interface ProductRepositoryWithBagRelationships {
     Optional<Product> fetchBagRelationships(Optional<Product> product);
@@ -14,4 +15,12 @@ public interface ProductRepositoryWithBagRelationships {
     Page<Product> fetchBagRelationships(Page<Product> products);
 
     Page<Product> findAllWithEagerRelationshipsAndSearch(Pageable pageable, String search);
+
+    Page<Product> findAllWithEagerRelationshipsAndFullTextSearch(Pageable pageable, String tsQuery);
+
+    Page<Product> findAllWithEagerRelationshipsAndTrigramSearch(Pageable pageable, List<String> terms);
+
+    List<Long> findIds(Specification<Product> specification, Pageable pageable, int maxResults);
+
+    List<Product> findAllWithBagRelationshipsByIdIn(List<Long> ids);
 }
@@ -1,8 +1,19 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.domain.Product_;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -12,6 +23,9 @@ import java.util.stream.IntStream;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
 
 /**
  * Utility repository to load bag relationships based on https://vladmihalcea.com/hibernate-multiplebagfetchexception/
@@ -20,6 +34,7 @@ public class ProductRepositoryWithBagRelationshipsImpl implements ProductReposit
 
     private static final String ID_PARAMETER = "id";
     private static final String PRODUCTS_PARAMETER = "products";
+    private static final String IDS_PARAMETER = "ids";
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -39,6 +54,49 @@ public class ProductRepositoryWithBagRelationshipsImpl implements ProductReposit
         return Optional.of(products).map(this::fetchCategories).map(this::fetchVariants).orElse(Collections.emptyList());
     }
 
+    /**
+     * Select only the ids of a page of products matching the specification, in the order of the pageable.
+     * <p>
+     * The sort expressions are selected along with the id, so the query stays valid when the specification makes it
+     * distinct.
+     */
+    @Override
+    public List<Long> findIds(Specification<Product> specification, Pageable pageable, int maxResults) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Order> orders = QueryUtils.toOrders(pageable.getSort(), root, builder);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get(Product_.id));
+        orders.forEach(order -> selections.add(order.getExpression()));
+        query.multiselect(selections).orderBy(orders);
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setMaxResults(maxResults);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+        }
+        return typedQuery.getResultList().stream().map(tuple -> tuple.get(0, Long.class)).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Product> findAllWithBagRelationshipsByIdIn(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        HashMap<Object, Integer> order = new HashMap<>();
+        IntStream.range(0, ids.size()).forEach(index -> order.put(ids.get(index), index));
+        List<Product> result = entityManager
+            .createQuery("select distinct product from Product product left join fetch product.categories where product.id in :ids", Product.class)
+            .setParameter(IDS_PARAMETER, ids)
+            .getResultList();
+        result = new ArrayList<>(fetchVariants(result));
+        Collections.sort(result, (o1, o2) -> Integer.compare(order.get(o1.getId()), order.get(o2.getId())));
+        return result;
+    }
+
     Product fetchCategories(Product result) {
         return entityManager
             .createQuery("select product from Product product left join fetch product.categories where product.id = :id", Product.class)
@@ -108,4 +166,67 @@ public class ProductRepositoryWithBagRelationshipsImpl implements ProductReposit
 
         return new PageImpl<>(productsWithRelationships, pageable, totalCount);
     }
+
+    /**
+     * Search active products with the {@code search_vector} full-text column, best {@code ts_rank} first.
+     *
+     * @param tsQuery a {@code to_tsquery} expression over unaccented lower-case terms.
+     */
+    @Override
+    public Page<Product> findAllWithEagerRelationshipsAndFullTextSearch(Pageable pageable, String tsQuery) {
+        Query idQuery = entityManager
+            .createNativeQuery(
+                "select p.id from products p where p.is_active = true and p.search_vector @@ to_tsquery('simple', :query) " +
+                "order by ts_rank(p.search_vector, to_tsquery('simple', :query)) desc, p.id"
+            )
+            .setParameter("query", tsQuery);
+        Query countQuery = entityManager
+            .createNativeQuery(
+                "select count(*) from products p where p.is_active = true and p.search_vector @@ to_tsquery('simple', :query)"
+            )
+            .setParameter("query", tsQuery);
+        return findPageByIds(idQuery, countQuery, pageable);
+    }
+
+    /**
+     * Search active products whose unaccented lower-case name or description contains every term, each in any order
+     * and position, through the trigram indexes, names most similar to the terms first.
+     *
+     * @param terms the unaccented lower-case terms, at least one.
+     */
+    @Override
+    public Page<Product> findAllWithEagerRelationshipsAndTrigramSearch(Pageable pageable, List<String> terms) {
+        String where =
+            "where p.is_active = true and " +
+            IntStream.range(0, terms.size())
+                .mapToObj(i ->
+                    "(immutable_unaccent(lower(p.name)) like :pattern" +
+                    i +
+                    " or immutable_unaccent(lower(p.description)) like :pattern" +
+                    i +
+                    ")"
+                )
+                .collect(Collectors.joining(" and "));
+        String search = String.join(" ", terms);
+        Query idQuery = entityManager.createNativeQuery(
+            "select p.id from products p " + where + " order by similarity(immutable_unaccent(lower(p.name)), :search) desc, p.id"
+        );
+        Query countQuery = entityManager.createNativeQuery("select count(*) from products p " + where);
+        for (int i = 0; i < terms.size(); i++) {
+            String pattern = "%" + terms.get(i).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            idQuery.setParameter("pattern" + i, pattern);
+            countQuery.setParameter("pattern" + i, pattern);
+        }
+        idQuery.setParameter("search", search);
+        return findPageByIds(idQuery, countQuery, pageable);
+    }
+
+    private Page<Product> findPageByIds(Query idQuery, Query countQuery, Pageable pageable) {
+        if (pageable.isPaged()) {
+            idQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Long> ids = ((List<?>) idQuery.getResultList()).stream().map(id -> ((Number) id).longValue()).toList();
+        List<Product> products = findAllWithBagRelationshipsByIdIn(ids);
+        return PageableExecutionUtils.getPage(products, pageable, () -> ((Number) countQuery.getSingleResult()).longValue());
+    }
 }
@@ -1,6 +1,7 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.ProductReview;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -42,4 +43,39 @@ public interface ProductReviewRepository extends JpaRepository<ProductReview, Lo
         "select productReview from ProductReview productReview left join fetch productReview.product left join fetch productReview.user where productReview.id =:id"
     )
     Optional<ProductReview> findOneWithToOneRelationships(@Param("id") Long id);
+
+    @Query(
+        "select productReview from ProductReview productReview left join fetch productReview.product left join fetch productReview.user " +
+        "where productReview.product.id = :productId order by productReview.id desc"
+    )
+    List<ProductReview> findNewestByProductId(@Param("productId") Long productId, Pageable pageable);
+
+    @Query(
+        "select productReview from ProductReview productReview left join fetch productReview.product left join fetch productReview.user " +
+        "where productReview.product.id = :productId and productReview.id < :beforeId order by productReview.id desc"
+    )
+    List<ProductReview> findNewestByProductIdBefore(
+        @Param("productId") Long productId,
+        @Param("beforeId") Long beforeId,
+        Pageable pageable
+    );
+
+    /**
+     * @return a single row with the sum and the number of the ratings of all reviews.
+     */
+    @Query("select coalesce(sum(productReview.rating), 0), count(productReview.rating) from ProductReview productReview")
+    List<Object[]> sumAndCountRatings();
+
+    /**
+     * @return for each of the given products having reviews, its id, the number and the sum of its ratings and the
+     * number of its ratings of 1 to 5.
+     */
+    @Query(
+        "select productReview.product.id, count(productReview.rating), sum(productReview.rating), " +
+        "sum(case when productReview.rating = 1 then 1 else 0 end), sum(case when productReview.rating = 2 then 1 else 0 end), " +
+        "sum(case when productReview.rating = 3 then 1 else 0 end), sum(case when productReview.rating = 4 then 1 else 0 end), " +
+        "sum(case when productReview.rating = 5 then 1 else 0 end) " +
+        "from ProductReview productReview where productReview.product.id in :productIds group by productReview.product.id"
+    )
+    List<Object[]> aggregateRatingsByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
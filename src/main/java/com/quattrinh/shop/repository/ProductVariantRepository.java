@@ -1,8 +1,12 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.ProductVariant;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
@@ -50,4 +54,106 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
 
     @Query("SELECT pv FROM ProductVariant pv WHERE pv.id = :id AND pv.isActive = true")
     Optional<ProductVariant> findOneActive(Long id);
+
+    /**
+     * Reserve stock for a variant with a single conditional update, so concurrent checkouts cannot both pass
+     * the availability check.
+     *
+     * @param id the id of the variant.
+     * @param quantity the quantity to reserve.
+     * @return the number of updated rows, {@code 0} when {@code stock - reserved} is lower than the quantity.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(
+        "update ProductVariant pv set pv.reserved = pv.reserved + :quantity where pv.id = :id and pv.stock - pv.reserved >= :quantity"
+    )
+    int reserveIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Lock the variants of the items of the given orders in ascending id order, the order in which checkouts reserve
+     * them, before {@link #finalizeReservedStockForOrders} updates them in the order of its join.
+     *
+     * @param orderIds the ids of the orders.
+     * @return the ids of the locked variants.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(
+        "select pv.id from ProductVariant pv " +
+        "where pv.id in (select item.variant.id from OrderItem item where item.order.id in :orderIds) order by pv.id"
+    )
+    List<Long> lockIdsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Move the reserved quantities of the given orders out of stock, for all their items in one statement.
+     *
+     * @param orderIds the ids of the completed orders.
+     * @return the number of updated variants.
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_variants"))
+    @Query(
+        value = "update product_variants pv set stock = greatest(pv.stock - item.quantity, 0), reserved = greatest(pv.reserved - item.quantity, 0) " +
+        "from (select oi.variant_id, sum(oi.quantity) as quantity from order_items oi where oi.order_id in (:orderIds) group by oi.variant_id) item " +
+        "where pv.id = item.variant_id",
+        nativeQuery = true
+    )
+    int finalizeReservedStockForOrders(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query(
+        "select pv.id as id, pv.stock as stock, pv.reserved as reserved from ProductVariant pv where pv.product.id = :productId"
+    )
+    List<StockLevel> findStockLevelsByProductId(@Param("productId") Long productId);
+
+    /**
+     * Active variants of a product with their attribute values, for the variant matrix.
+     *
+     * @return rows of variant id, price, attribute value id and attribute id, by variant id; a variant without
+     * attribute values has one row with null ids.
+     */
+    @Query(
+        "select pv.id, pv.price, av.id, av.attribute.id from ProductVariant pv left join pv.attributeValues av " +
+        "where pv.product.id = :productId and pv.isActive = true order by pv.id"
+    )
+    List<Object[]> findActiveMatrixRowsByProductId(@Param("productId") Long productId);
+
+    /**
+     * @return rows of variant id and attribute value id of all the variants of a product, active or not.
+     */
+    @Query("select pv.id, av.id from ProductVariant pv join pv.attributeValues av where pv.product.id = :productId")
+    List<Object[]> findAttributeValueIdsByProductId(@Param("productId") Long productId);
+
+    @Query("select pv.sku from ProductVariant pv where pv.sku in :skus")
+    List<String> findSkusBySkuIn(@Param("skus") Collection<String> skus);
+
+    @Query("select distinct pv.product.id from ProductVariant pv join pv.attributeValues av where av.id = :attributeValueId")
+    List<Long> findProductIdsByAttributeValueId(@Param("attributeValueId") Long attributeValueId);
+
+    /**
+     * Active variants of active products, for the facet index.
+     *
+     * @return rows of variant id, product id, price and available quantity.
+     */
+    @Query(
+        "select pv.id, pv.product.id, pv.price, coalesce(pv.stock, 0) - coalesce(pv.reserved, 0) from ProductVariant pv where pv.isActive = true and pv.product.isActive = true"
+    )
+    List<Object[]> findAllActiveFacetRows();
+
+    @Query(
+        "select pv.id, av.id from ProductVariant pv join pv.attributeValues av where pv.isActive = true and pv.product.isActive = true"
+    )
+    List<Object[]> findAllActiveAttributeValueIds();
+
+    @Query("select pv.id from ProductVariant pv where pv.isActive = true and coalesce(pv.stock, 0) - coalesce(pv.reserved, 0) > 0")
+    List<Long> findAllAvailableIds();
+
+    /**
+     * The volatile stock columns of a variant.
+     */
+    interface StockLevel {
+        Long getId();
+
+        Integer getStock();
+
+        Integer getReserved();
+    }
 }
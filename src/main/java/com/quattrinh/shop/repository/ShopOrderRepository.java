@@ -1,6 +1,10 @@
 package com.quattrinh.shop.repository;
 
 import com.quattrinh.shop.domain.ShopOrder;
+import com.quattrinh.shop.domain.enumeration.OrderStatus;
+import jakarta.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -30,27 +34,84 @@ public interface ShopOrderRepository extends JpaRepository<ShopOrder, Long>, Jpa
     }
 
     @Query(
-        value = "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product",
+        value = "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product",
         countQuery = "select count(shopOrder) from ShopOrder shopOrder"
     )
     Page<ShopOrder> findAllWithToOneRelationships(Pageable pageable);
 
     @Query(
-        "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product"
+        "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product"
     )
     List<ShopOrder> findAllWithToOneRelationships();
 
     @Query(
-        "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product where shopOrder.id =:id"
+        "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product where shopOrder.id =:id"
     )
     Optional<ShopOrder> findOneWithToOneRelationships(@Param("id") Long id);
 
+    /**
+     * Page the orders with their user and payment. The payment is the inverse side of its one-to-one, so it is
+     * fetched here rather than loaded by one select per order.
+     */
+    @Query(
+        value = "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment",
+        countQuery = "select count(shopOrder) from ShopOrder shopOrder"
+    )
+    Page<ShopOrder> findAllWithUserAndPayment(Pageable pageable);
+
     @Query("select shopOrder from ShopOrder shopOrder where shopOrder.user.id = :userId order by shopOrder.createdAt desc")
     Page<ShopOrder> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId, Pageable pageable);
 
     @Query(
-        value = "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product where shopOrder.user.id = :userId order by shopOrder.createdAt desc",
+        value = "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product where shopOrder.user.id = :userId order by shopOrder.createdAt desc",
         countQuery = "select count(shopOrder) from ShopOrder shopOrder where shopOrder.user.id = :userId"
     )
     Page<ShopOrder> findByUserIdWithEagerRelationshipsOrderByCreatedAtDesc(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select shopOrder.id from ShopOrder shopOrder where shopOrder.id < :beforeId order by shopOrder.id desc")
+    List<Long> findIdsBefore(@Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query(
+        "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment where shopOrder.id > :afterId order by shopOrder.id"
+    )
+    List<ShopOrder> findAllAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select shopOrder.id from ShopOrder shopOrder where shopOrder.id > :afterId order by shopOrder.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(
+        "select shopOrder from ShopOrder shopOrder left join fetch shopOrder.user left join fetch shopOrder.payment left join fetch shopOrder.orderItems left join fetch shopOrder.orderItems.variant left join fetch shopOrder.orderItems.variant.product where shopOrder.id in :ids order by shopOrder.id desc"
+    )
+    List<ShopOrder> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select shopOrder.id from ShopOrder shopOrder where shopOrder.id in :ids and shopOrder.status <> :status order by shopOrder.id")
+    List<Long> lockIdsWithStatusOtherThan(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
+
+    /**
+     * Set the status of orders, with the auditing columns the entity listener would set on a save.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(
+        "update ShopOrder shopOrder set shopOrder.status = :status, shopOrder.updatedAt = :updatedAt, " +
+        "shopOrder.lastModifiedBy = :modifiedBy, shopOrder.lastModifiedDate = :updatedAt where shopOrder.id in :ids"
+    )
+    int updateStatus(
+        @Param("ids") Collection<Long> ids,
+        @Param("status") OrderStatus status,
+        @Param("updatedAt") Instant updatedAt,
+        @Param("modifiedBy") String modifiedBy
+    );
+
+    @Query("select count(distinct shopOrder.user.id) from ShopOrder shopOrder where shopOrder.status = :status")
+    long countDistinctUsersByStatus(@Param("status") OrderStatus status);
+
+    /**
+     * Count the users of the given orders who have no other order with the given status.
+     */
+    @Query(
+        "select count(distinct shopOrder.user.id) from ShopOrder shopOrder where shopOrder.id in :ids and not exists (" +
+        "select other.id from ShopOrder other where other.user = shopOrder.user and other.status = :status and other.id not in :ids)"
+    )
+    long countUsersWithoutOtherOrderWithStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
 }
@@ -0,0 +1,185 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.domain.CatalogStatistic;
+import com.quattrinh.shop.domain.CatalogStatistic.Name;
+import com.quattrinh.shop.domain.enumeration.OrderStatus;
+import com.quattrinh.shop.repository.CatalogStatisticRepository;
+import com.quattrinh.shop.repository.CategoryRepository;
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.repository.ProductReviewRepository;
+import com.quattrinh.shop.repository.ShopOrderRepository;
+import com.quattrinh.shop.repository.UserRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service maintaining the product statistics of the home page in the {@code catalog_statistics} table.
+ * <p>
+ * Each counter is incremented by the service changing the underlying data, in the same transaction, so reading the
+ * statistics is a read of a few rows. Counters are reconciled with the data every hour, which also corrects the
+ * changes not tracked incrementally, such as a completed order being returned.
+ */
+@Service
+@Transactional
+public class CatalogStatisticsService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogStatisticsService.class);
+
+    private final CatalogStatisticRepository catalogStatisticRepository;
+
+    private final ProductRepository productRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final ProductReviewRepository productReviewRepository;
+
+    private final ShopOrderRepository shopOrderRepository;
+
+    private final UserRepository userRepository;
+
+    public CatalogStatisticsService(
+        CatalogStatisticRepository catalogStatisticRepository,
+        ProductRepository productRepository,
+        CategoryRepository categoryRepository,
+        ProductReviewRepository productReviewRepository,
+        ShopOrderRepository shopOrderRepository,
+        UserRepository userRepository
+    ) {
+        this.catalogStatisticRepository = catalogStatisticRepository;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productReviewRepository = productReviewRepository;
+        this.shopOrderRepository = shopOrderRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Get product statistics for home page.
+     *
+     * @return the product statistics.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getProductStats() {
+        LOG.debug("Request to get Product Statistics");
+        Map<Name, Long> totals = new EnumMap<>(Name.class);
+        catalogStatisticRepository.findAll().forEach(statistic -> totals.put(statistic.getName(), statistic.getTotal()));
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalProducts", totals.getOrDefault(Name.ACTIVE_PRODUCTS, 0L));
+        stats.put("totalCategories", totals.getOrDefault(Name.ACTIVE_CATEGORIES, 0L));
+        long ratingCount = totals.getOrDefault(Name.RATING_COUNT, 0L);
+        double averageRating = ratingCount == 0
+            ? 0
+            : BigDecimal.valueOf(totals.getOrDefault(Name.RATING_SUM, 0L))
+                .divide(BigDecimal.valueOf(ratingCount), 1, RoundingMode.HALF_UP)
+                .doubleValue();
+        stats.put("averageRating", averageRating);
+        stats.put("totalReviews", ratingCount);
+        stats.put("totalCustomers", totals.getOrDefault(Name.CUSTOMERS, 0L));
+        stats.put("registeredUsers", totals.getOrDefault(Name.REGISTERED_USERS, 0L));
+        return stats;
+    }
+
+    /**
+     * Count the change of activation of a product.
+     *
+     * @param wasActive whether the product was active, {@code null} for a new product.
+     * @param active whether the product is active now.
+     */
+    public void productActivationChanged(Boolean wasActive, Boolean active) {
+        increment(Name.ACTIVE_PRODUCTS, activationDelta(wasActive, active));
+    }
+
+    /**
+     * Count the change of activation of a category.
+     *
+     * @param wasActive whether the category was active, {@code null} for a new category.
+     * @param active whether the category is active now.
+     */
+    public void categoryActivationChanged(Boolean wasActive, Boolean active) {
+        increment(Name.ACTIVE_CATEGORIES, activationDelta(wasActive, active));
+    }
+
+    /**
+     * Count the change of rating of a review.
+     *
+     * @param previousRating the previous rating, {@code null} for a new review or a review without rating.
+     * @param rating the new rating, {@code null} for a deleted review or a review without rating.
+     */
+    public void reviewRatingChanged(Integer previousRating, Integer rating) {
+        long sumDelta = (rating != null ? rating : 0) - (previousRating != null ? previousRating : 0);
+        long countDelta = (rating != null ? 1 : 0) - (previousRating != null ? 1 : 0);
+        increment(Name.RATING_SUM, sumDelta);
+        increment(Name.RATING_COUNT, countDelta);
+    }
+
+    /**
+     * Count the users placing their first completed order among orders which just became completed.
+     *
+     * @param orderIds the ids of the orders.
+     */
+    public void ordersCompleted(Collection<Long> orderIds) {
+        if (!orderIds.isEmpty()) {
+            increment(Name.CUSTOMERS, shopOrderRepository.countUsersWithoutOtherOrderWithStatus(orderIds, OrderStatus.COMPLETED));
+        }
+    }
+
+    /**
+     * Count created or deleted users.
+     *
+     * @param delta the number of created users, negative for deleted ones.
+     */
+    public void usersChanged(long delta) {
+        increment(Name.REGISTERED_USERS, delta);
+    }
+
+    /**
+     * Recompute all the counters from the data. The counters are locked meanwhile, so that no concurrent increment is
+     * lost or counted twice.
+     */
+    @Scheduled(initialDelay = 3600000, fixedDelay = 3600000)
+    public void reconcile() {
+        Map<Name, CatalogStatistic> statistics = new EnumMap<>(Name.class);
+        catalogStatisticRepository.findAllForUpdate().forEach(statistic -> statistics.put(statistic.getName(), statistic));
+
+        Map<Name, Long> totals = new EnumMap<>(Name.class);
+        totals.put(Name.ACTIVE_PRODUCTS, productRepository.countByIsActiveTrue());
+        totals.put(Name.ACTIVE_CATEGORIES, categoryRepository.countByIsActiveTrue());
+        Object[] ratings = productReviewRepository.sumAndCountRatings().get(0);
+        totals.put(Name.RATING_SUM, ((Number) ratings[0]).longValue());
+        totals.put(Name.RATING_COUNT, ((Number) ratings[1]).longValue());
+        totals.put(Name.CUSTOMERS, shopOrderRepository.countDistinctUsersByStatus(OrderStatus.COMPLETED));
+        totals.put(Name.REGISTERED_USERS, userRepository.count());
+
+        totals.forEach((name, total) -> {
+            CatalogStatistic statistic = statistics.get(name);
+            if (statistic == null) {
+                statistic = new CatalogStatistic();
+                statistic.setName(name);
+            } else if (!total.equals(statistic.getTotal())) {
+                LOG.info("Reconciled catalog statistic {} from {} to {}", name, statistic.getTotal(), total);
+            }
+            statistic.setTotal(total);
+            catalogStatisticRepository.save(statistic);
+        });
+    }
+
+    private void increment(Name name, long delta) {
+        if (delta != 0) {
+            catalogStatisticRepository.increment(name, delta);
+        }
+    }
+
+    private static long activationDelta(Boolean wasActive, Boolean active) {
+        return (Boolean.TRUE.equals(active) ? 1 : 0) - (Boolean.TRUE.equals(wasActive) ? 1 : 0);
+    }
+}
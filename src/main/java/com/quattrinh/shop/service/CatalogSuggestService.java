@@ -0,0 +1,479 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.domain.Category;
+import com.quattrinh.shop.repository.CategoryRepository;
+import com.quattrinh.shop.repository.OrderItemRepository;
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.service.dto.SuggestionDTO;
+import com.quattrinh.shop.service.dto.SuggestionDTO.Type;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service answering the typeahead of the storefront search box from an in-memory prefix trie over the names of
+ * active products and categories.
+ * <p>
+ * Every token of a name (folded like {@link ProductSearchIndex#tokenize(String)}) is a path of the trie, whose chains
+ * of single-child nodes are collapsed into one edge, and each node keeps its {@value #TOP_K} most popular entries, so
+ * a lookup is a walk down the typed prefix. Products are ranked by units sold and categories by number of active
+ * products. The trie is rebuilt periodically to refresh popularity, and catalog changes are applied incrementally in
+ * between by {@link ProductService} and {@link CategoryService} once committed. Queries of several terms filter the
+ * top entries of the last term and, when those are not enough, walk down the subtree of the most selective term most
+ * popular first, stopping at the limit or after {@value #MAX_SCANNED} entries.
+ */
+@Service
+public class CatalogSuggestService {
+
+    public static final int TOP_K = 20;
+
+    private static final int MAX_SCANNED = 5000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogSuggestService.class);
+
+    private static final Comparator<Entry> BY_POPULARITY = Comparator.comparingLong(Entry::popularity)
+        .reversed()
+        .thenComparing(Entry::name)
+        .thenComparing(Entry::type)
+        .thenComparing(Entry::id);
+
+    private final ProductRepository productRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Updates applied while a rebuild is running, replayed on the rebuilt trie. */
+    private final List<Consumer<Trie>> pendingUpdates = new ArrayList<>();
+
+    private Trie trie = new Trie();
+
+    private boolean rebuilding;
+
+    public CatalogSuggestService(
+        ProductRepository productRepository,
+        CategoryRepository categoryRepository,
+        OrderItemRepository orderItemRepository
+    ) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    /**
+     * Suggest products and categories whose name has a token starting with each typed term.
+     *
+     * @param query the typed text.
+     * @param limit the maximum number of suggestions, at most {@value #TOP_K}.
+     * @return the most popular matching suggestions.
+     */
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        List<String> terms = ProductSearchIndex.tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = trie.find(terms.get(terms.size() - 1));
+            if (node == null) {
+                return List.of();
+            }
+            // The top entries of the node are the most popular of its subtree, so their matches come first
+            List<Entry> matches = node.top.stream().filter(entry -> entry.matches(terms)).limit(limit).toList();
+            if (terms.size() > 1 && matches.size() < limit && node.top.size() == TOP_K) {
+                // Less popular matches are further down the subtree of the most selective term, the longest one
+                String longest = terms.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+                Node smallest = trie.find(longest);
+                if (smallest == null) {
+                    return List.of();
+                }
+                matches = walk(smallest, terms, limit);
+            }
+            return matches.stream().map(entry -> new SuggestionDTO(entry.type(), entry.id(), entry.name())).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the most popular matches of a subtree, in order. Nodes are queued by the first of their top entries, which
+     * no entry below them precedes, so an entry is only taken once no better one remains.
+     */
+    private static List<Entry> walk(Node node, List<String> terms, int limit) {
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparing(Candidate::best, BY_POPULARITY));
+        if (!node.top.isEmpty()) {
+            queue.add(Candidate.of(node));
+        }
+        Set<Entry> seen = new HashSet<>();
+        List<Entry> matches = new ArrayList<>(limit);
+        int scanned = 0;
+        while (!queue.isEmpty() && matches.size() < limit && scanned < MAX_SCANNED) {
+            Candidate candidate = queue.poll();
+            if (candidate.node() != null) {
+                candidate.node().entries.forEach(entry -> queue.add(new Candidate(entry, null)));
+                candidate.node().children.values().stream().filter(child -> !child.top.isEmpty()).map(Candidate::of).forEach(queue::add);
+            } else if (seen.add(candidate.best())) {
+                scanned++;
+                if (candidate.best().matches(terms)) {
+                    matches.add(candidate.best());
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * An entry, or a node queued by the best entry of its subtree.
+     */
+    private record Candidate(Entry best, Node node) {
+        static Candidate of(Node node) {
+            return new Candidate(node.top.isEmpty() ? null : node.top.get(0), node);
+        }
+    }
+
+    /**
+     * Rebuild the trie from the database, every ten minutes so that popularity follows sales.
+     */
+    @Scheduled(initialDelay = 0, fixedDelay = 600000)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingUpdates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Trie rebuilt;
+        try {
+            rebuilt = load();
+        } catch (RuntimeException e) {
+            LOG.warn("Could not rebuild the catalog suggestion trie, keeping the previous one: {}", e.getMessage());
+            rebuilt = null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                for (Consumer<Trie> update : pendingUpdates) {
+                    update.accept(rebuilt);
+                }
+                trie = rebuilt;
+                LOG.debug("Catalog suggestion trie rebuilt with {} entries", rebuilt.entries.size());
+            }
+            rebuilding = false;
+            pendingUpdates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Trie load() {
+        Trie loaded = new Trie();
+        Map<Long, Long> unitsSold = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantityGroupByProductId()) {
+            unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        for (Object[] row : productRepository.findAllActiveIdAndName()) {
+            Long id = (Long) row[0];
+            loaded.insert(entry(Type.PRODUCT, id, (String) row[1], unitsSold.getOrDefault(id, 0L)));
+        }
+        Map<Long, Long> productCounts = new HashMap<>();
+        for (Object[] row : categoryRepository.countActiveProductsGroupByCategoryId()) {
+            productCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        for (Category category : categoryRepository.findByIsActiveTrue()) {
+            long popularity = productCounts.getOrDefault(category.getId(), 0L);
+            loaded.insert(entry(Type.CATEGORY, category.getId(), category.getName(), popularity));
+        }
+        loaded.computeTop(loaded.root);
+        return loaded;
+    }
+
+    /**
+     * Add or update a product, or remove it if it is not active, once the current transaction commits.
+     *
+     * @param id the id of the product.
+     * @param name the name of the product.
+     * @param active whether the product is active.
+     */
+    public void putProduct(Long id, String name, Boolean active) {
+        put(Type.PRODUCT, id, name, active);
+    }
+
+    /**
+     * Add or update a category, or remove it if it is not active, once the current transaction commits.
+     *
+     * @param id the id of the category.
+     * @param name the name of the category.
+     * @param active whether the category is active.
+     */
+    public void putCategory(Long id, String name, Boolean active) {
+        put(Type.CATEGORY, id, name, active);
+    }
+
+    private void put(Type type, Long id, String name, Boolean active) {
+        if (id == null) {
+            return;
+        }
+        Consumer<Trie> update;
+        if (Boolean.FALSE.equals(active) || name == null) {
+            update = target -> target.remove(new Key(type, id));
+        } else {
+            update = target -> {
+                // Keep the popularity computed by the last rebuild
+                Entry previous = target.entries.get(new Key(type, id));
+                target.put(entry(type, id, name, previous != null ? previous.popularity() : 0L));
+            };
+        }
+        // The trie is shared by all transactions, so it only sees committed changes
+        TransactionHooks.afterCommit(() -> apply(update));
+    }
+
+    private void apply(Consumer<Trie> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(trie);
+            if (rebuilding) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Entry entry(Type type, Long id, String name, long popularity) {
+        return new Entry(type, id, name, popularity, List.copyOf(new LinkedHashSet<>(ProductSearchIndex.tokenize(name))));
+    }
+
+    private record Key(Type type, Long id) {}
+
+    private record Entry(Type type, Long id, String name, long popularity, List<String> tokens) {
+        Key key() {
+            return new Key(type, id);
+        }
+
+        /**
+         * @return whether every term is a prefix of a token of the name.
+         */
+        boolean matches(List<String> terms) {
+            return terms.stream().allMatch(term -> tokens.stream().anyMatch(token -> token.startsWith(term)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry other && type == other.type && Objects.equals(id, other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+
+    private static final class Node {
+
+        /** The characters of the edge from the parent, several when a chain of single-child nodes is collapsed. */
+        private String label;
+
+        /** Children by the first character of their label. */
+        private final Map<Character, Node> children = new HashMap<>();
+
+        /** Entries with a token ending at this node. */
+        private final Set<Entry> entries = new HashSet<>();
+
+        /** The most popular entries of this node and its descendants. */
+        private List<Entry> top = List.of();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final class Trie {
+
+        private final Node root = new Node("");
+
+        private final Map<Key, Entry> entries = new HashMap<>();
+
+        /**
+         * @return the node whose subtree holds the tokens starting with the prefix, or {@code null}.
+         */
+        Node find(String prefix) {
+            Node node = root;
+            int i = 0;
+            while (i < prefix.length()) {
+                Node child = node.children.get(prefix.charAt(i));
+                if (child == null) {
+                    return null;
+                }
+                int common = commonPrefixLength(child.label, prefix, i);
+                if (i + common == prefix.length()) {
+                    // The prefix ends on the edge to the child, so all the tokens below the child start with it
+                    return child;
+                }
+                if (common < child.label.length()) {
+                    return null;
+                }
+                i += common;
+                node = child;
+            }
+            return node;
+        }
+
+        /**
+         * Add or replace an entry and update the top entries along its paths.
+         */
+        void put(Entry entry) {
+            remove(entry.key());
+            for (List<Node> path : insert(entry)) {
+                updateTop(path);
+            }
+        }
+
+        /**
+         * Add an entry without updating the top entries, see {@link #computeTop(Node)}.
+         *
+         * @return the path of each token of the entry.
+         */
+        List<List<Node>> insert(Entry entry) {
+            entries.put(entry.key(), entry);
+            List<List<Node>> paths = new ArrayList<>(entry.tokens().size());
+            for (String token : entry.tokens()) {
+                List<Node> path = insertPath(token);
+                path.get(path.size() - 1).entries.add(entry);
+                paths.add(path);
+            }
+            return paths;
+        }
+
+        /**
+         * Walk down a token, splitting the edge where it diverges from the token and adding the missing end.
+         */
+        private List<Node> insertPath(String token) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (i < token.length()) {
+                Node child = node.children.get(token.charAt(i));
+                if (child == null) {
+                    child = new Node(token.substring(i));
+                    node.children.put(token.charAt(i), child);
+                    path.add(child);
+                    return path;
+                }
+                int common = commonPrefixLength(child.label, token, i);
+                if (common < child.label.length()) {
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children.put(child.label.charAt(0), child);
+                    split.top = child.top;
+                    node.children.put(token.charAt(i), split);
+                    child = split;
+                }
+                i += common;
+                node = child;
+                path.add(node);
+            }
+            return path;
+        }
+
+        /**
+         * @return the path of a token, or {@code null} if it is not in the trie.
+         */
+        private List<Node> path(String token) {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            path.add(node);
+            int i = 0;
+            while (i < token.length()) {
+                Node child = node.children.get(token.charAt(i));
+                if (child == null || !token.startsWith(child.label, i)) {
+                    return null;
+                }
+                i += child.label.length();
+                node = child;
+                path.add(node);
+            }
+            return path;
+        }
+
+        /**
+         * Compute the top entries of a whole subtree, children first.
+         */
+        void computeTop(Node node) {
+            node.children.values().forEach(this::computeTop);
+            updateTop(node);
+        }
+
+        void remove(Key key) {
+            Entry entry = entries.remove(key);
+            if (entry == null) {
+                return;
+            }
+            for (String token : entry.tokens()) {
+                List<Node> path = path(token);
+                if (path == null) {
+                    continue;
+                }
+                path.get(path.size() - 1).entries.remove(entry);
+                // Prune the nodes left without entries and collapse those left with a single child, deepest first
+                for (int i = path.size() - 1; i > 0; i--) {
+                    Node child = path.get(i);
+                    Node parent = path.get(i - 1);
+                    if (!child.entries.isEmpty()) {
+                        continue;
+                    }
+                    if (child.children.isEmpty()) {
+                        parent.children.remove(child.label.charAt(0));
+                    } else if (child.children.size() == 1) {
+                        Node only = child.children.values().iterator().next();
+                        only.label = child.label + only.label;
+                        parent.children.put(only.label.charAt(0), only);
+                    }
+                }
+                updateTop(path);
+            }
+        }
+
+        /**
+         * Recompute the top entries along a path, from the deepest node up to the root.
+         */
+        private void updateTop(List<Node> path) {
+            for (int i = path.size() - 1; i >= 0; i--) {
+                updateTop(path.get(i));
+            }
+        }
+
+        private void updateTop(Node node) {
+            Set<Entry> candidates = new HashSet<>(node.entries);
+            node.children.values().forEach(child -> candidates.addAll(child.top));
+            node.top = candidates.stream().sorted(BY_POPULARITY).limit(TOP_K).toList();
+        }
+
+        private static int commonPrefixLength(String label, String text, int from) {
+            int length = 0;
+            while (length < label.length() && from + length < text.length() && label.charAt(length) == text.charAt(from + length)) {
+                length++;
+            }
+            return length;
+        }
+    }
+}
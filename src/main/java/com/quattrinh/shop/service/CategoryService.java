@@ -1,12 +1,14 @@
 package com.quattrinh.shop.service;
 
 import com.quattrinh.shop.domain.Category;
+import com.quattrinh.shop.repository.CategoryClosureRepository;
 import com.quattrinh.shop.repository.CategoryRepository;
 import com.quattrinh.shop.service.dto.CategoryDTO;
 import com.quattrinh.shop.service.mapper.CategoryMapper;
+import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -23,11 +25,34 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
 
+    private final CategoryClosureRepository categoryClosureRepository;
+
     private final CategoryMapper categoryMapper;
 
-    public CategoryService(CategoryRepository categoryRepository, CategoryMapper categoryMapper) {
+    private final CatalogSuggestService catalogSuggestService;
+
+    private final ProductFacetService productFacetService;
+
+    private final CategoryTreeService categoryTreeService;
+
+    private final CatalogStatisticsService catalogStatisticsService;
+
+    public CategoryService(
+        CategoryRepository categoryRepository,
+        CategoryClosureRepository categoryClosureRepository,
+        CategoryMapper categoryMapper,
+        CatalogSuggestService catalogSuggestService,
+        ProductFacetService productFacetService,
+        CategoryTreeService categoryTreeService,
+        CatalogStatisticsService catalogStatisticsService
+    ) {
         this.categoryRepository = categoryRepository;
+        this.categoryClosureRepository = categoryClosureRepository;
         this.categoryMapper = categoryMapper;
+        this.catalogSuggestService = catalogSuggestService;
+        this.productFacetService = productFacetService;
+        this.categoryTreeService = categoryTreeService;
+        this.catalogStatisticsService = catalogStatisticsService;
     }
 
     /**
@@ -46,17 +71,34 @@ public class CategoryService {
         }
 
         category = categoryRepository.save(category);
+        categoryClosureRepository.insertSelf(category.getId());
+        if (category.getParentCategory() != null) {
+            categoryClosureRepository.attachSubtree(category.getId(), category.getParentCategory().getId());
+        }
+        catalogStatisticsService.categoryActivationChanged(null, category.getActive());
+        updateSearchStructures(category);
         return categoryMapper.toDto(category);
     }
 
     /**
-     * Update a category.
+     * Update a category. A change of parent moves the whole subtree of the category.
      *
      * @param categoryDTO the entity to save.
      * @return the persisted entity.
+     * @throws BadRequestAlertException if the new parent is the category or one of its subcategories.
      */
     public CategoryDTO update(CategoryDTO categoryDTO) {
         LOG.debug("Request to update Category : {}", categoryDTO);
+        Optional<Category> existingCategory = categoryRepository.findById(categoryDTO.getId());
+        Boolean wasActive = existingCategory.map(Category::getActive).orElse(null);
+        Long previousParentId = existingCategory.map(Category::getParentCategory).map(Category::getId).orElse(null);
+        if (categoryDTO.getParentId() != null && !categoryDTO.getParentId().equals(previousParentId)) {
+            // A concurrent move could otherwise close a cycle between the check and the commit
+            categoryRepository.lockIdsForMove(categoryDTO.getId(), categoryDTO.getParentId());
+            if (categoryClosureRepository.existsByAncestorIdAndDescendantId(categoryDTO.getId(), categoryDTO.getParentId())) {
+                throw new BadRequestAlertException("A category cannot be moved under its own subtree", "category", "parentcycle");
+            }
+        }
         Category category = categoryMapper.toEntity(categoryDTO);
 
         // Set parent category if parentId is provided
@@ -67,6 +109,15 @@ public class CategoryService {
         }
 
         category = categoryRepository.save(category);
+        Long parentId = category.getParentCategory() != null ? category.getParentCategory().getId() : null;
+        if (existingCategory.isPresent() && !Objects.equals(previousParentId, parentId)) {
+            categoryClosureRepository.detachSubtree(category.getId());
+            if (parentId != null) {
+                categoryClosureRepository.attachSubtree(category.getId(), parentId);
+            }
+        }
+        catalogStatisticsService.categoryActivationChanged(wasActive, category.getActive());
+        updateSearchStructures(category);
         return categoryMapper.toDto(category);
     }
 
@@ -82,12 +133,17 @@ public class CategoryService {
         return categoryRepository
             .findById(categoryDTO.getId())
             .map(existingCategory -> {
+                Boolean wasActive = existingCategory.getActive();
                 categoryMapper.partialUpdate(existingCategory, categoryDTO);
+                catalogStatisticsService.categoryActivationChanged(wasActive, existingCategory.getActive());
 
                 return existingCategory;
             })
             .map(categoryRepository::save)
-            .map(categoryMapper::toDto);
+            .map(category -> {
+                updateSearchStructures(category);
+                return categoryMapper.toDto(category);
+            });
     }
 
     /**
@@ -112,8 +168,10 @@ public class CategoryService {
         Optional<Category> categoryOpt = categoryRepository.findById(id);
         if (categoryOpt.isPresent()) {
             Category category = categoryOpt.get();
+            catalogStatisticsService.categoryActivationChanged(category.getActive(), false);
             category.setActive(false);
             categoryRepository.save(category);
+            updateSearchStructures(category);
         }
     }
 
@@ -127,8 +185,10 @@ public class CategoryService {
         Optional<Category> categoryOpt = categoryRepository.findById(id);
         if (categoryOpt.isPresent()) {
             Category category = categoryOpt.get();
+            catalogStatisticsService.categoryActivationChanged(category.getActive(), true);
             category.setActive(true);
             categoryRepository.save(category);
+            updateSearchStructures(category);
         }
     }
 
@@ -140,17 +200,7 @@ public class CategoryService {
     @Transactional(readOnly = true)
     public List<CategoryDTO> findParentCategories() {
         LOG.debug("Request to get Active Parent Categories");
-        List<Category> parentCategories = categoryRepository.findByParentCategoryIsNullAndIsActiveTrue();
-        return parentCategories
-            .stream()
-            .map(category -> {
-                CategoryDTO dto = categoryMapper.toDto(category);
-                // Count products in this category and all its subcategories
-                long productCount = countProductsInCategory(category);
-                dto.setProductCount(productCount);
-                return dto;
-            })
-            .collect(Collectors.toList());
+        return categoryTreeService.findActiveRoots();
     }
 
     /**
@@ -161,17 +211,7 @@ public class CategoryService {
     @Transactional(readOnly = true)
     public List<CategoryDTO> findAllParentCategories() {
         LOG.debug("Request to get All Parent Categories (Admin)");
-        List<Category> parentCategories = categoryRepository.findByParentCategoryIsNull();
-        return parentCategories
-            .stream()
-            .map(category -> {
-                CategoryDTO dto = categoryMapper.toDto(category);
-                // Count products in this category and all its subcategories
-                long productCount = countProductsInCategory(category);
-                dto.setProductCount(productCount);
-                return dto;
-            })
-            .collect(Collectors.toList());
+        return categoryTreeService.findAllRoots();
     }
 
     /**
@@ -182,35 +222,23 @@ public class CategoryService {
     @Transactional(readOnly = true)
     public List<CategoryDTO> findAllCategories() {
         LOG.debug("Request to get All Categories (Admin)");
-        List<Category> allCategories = categoryRepository.findAll();
-        return allCategories
-            .stream()
-            .map(category -> {
-                CategoryDTO dto = categoryMapper.toDto(category);
-                // Count products in this category only (not recursive for performance)
-                long productCount = category.getProducts().size();
-                dto.setProductCount(productCount);
-                return dto;
-            })
-            .collect(Collectors.toList());
+        return categoryTreeService.findAllWithDirectProductCounts();
     }
 
     /**
-     * Count products in a category and all its active subcategories recursively.
+     * Get all categories nested under their parents, each with the products of its active subtree counted.
      *
-     * @param category the category to count products for.
-     * @return the total product count.
+     * @return the serialized hierarchy of all categories.
      */
-    private long countProductsInCategory(Category category) {
-        long count = category.getProducts().size();
-
-        // Add products from active subcategories only
-        for (Category subCategory : category.getSubCategories()) {
-            if (subCategory.getActive()) {
-                count += countProductsInCategory(subCategory);
-            }
-        }
+    @Transactional(readOnly = true)
+    public CategoryTreeService.SerializedHierarchy findHierarchy() {
+        LOG.debug("Request to get Categories hierarchy");
+        return categoryTreeService.findHierarchy();
+    }
 
-        return count;
+    private void updateSearchStructures(Category category) {
+        catalogSuggestService.putCategory(category.getId(), category.getName(), category.getActive());
+        productFacetService.invalidate();
+        categoryTreeService.invalidate();
     }
 }
@@ -0,0 +1,303 @@
+package com.quattrinh.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quattrinh.shop.repository.CategoryRepository;
+import com.quattrinh.shop.service.dto.CategoryDTO;
+import com.quattrinh.shop.service.dto.CategoryNodeDTO;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service serving the category tree from an immutable in-memory snapshot.
+ * <p>
+ * The snapshot holds every category with its parent, its children and two product counts: the products directly in
+ * the category, and those plus the products of its active subcategories, recursively. It is built from two queries,
+ * one for the categories and one counting the products of each category, and replaced as a whole on the first read
+ * after {@link #invalidate()} is called by a change of a category or of the categories of a product. While one reader
+ * rebuilds it, the others keep reading the previous snapshot.
+ * <p>
+ * The nested hierarchy is serialized once per snapshot, with an entity tag derived from its content so that it is the
+ * same on every instance and across restarts.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CategoryTreeService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CategoryTreeService.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Tree tree;
+
+    private volatile SerializedHierarchy hierarchy;
+
+    public CategoryTreeService(CategoryRepository categoryRepository, ObjectMapper objectMapper) {
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Get the active root categories, with the products of their active subtrees counted.
+     *
+     * @return the categories, by id.
+     */
+    public List<CategoryDTO> findActiveRoots() {
+        Tree current = current();
+        return toDtos(current, current.rootIds(), Node::active, true);
+    }
+
+    /**
+     * Get all the root categories, with the products of their active subtrees counted.
+     *
+     * @return the categories, by id.
+     */
+    public List<CategoryDTO> findAllRoots() {
+        Tree current = current();
+        return toDtos(current, current.rootIds(), node -> true, true);
+    }
+
+    /**
+     * Get all the categories, with only the products directly in each of them counted.
+     *
+     * @return the categories, by id.
+     */
+    public List<CategoryDTO> findAllWithDirectProductCounts() {
+        Tree current = current();
+        return toDtos(current, current.ids(), node -> true, false);
+    }
+
+    /**
+     * Get all the categories nested under their parents, with the products of their active subtrees counted, as JSON.
+     *
+     * @return the root categories, by id, serialized with their entity tag.
+     */
+    public SerializedHierarchy findHierarchy() {
+        Tree current = current();
+        SerializedHierarchy serialized = hierarchy;
+        if (serialized != null && serialized.version() == current.version()) {
+            return serialized;
+        }
+        List<CategoryNodeDTO> roots = new ArrayList<>();
+        for (Long rootId : current.rootIds()) {
+            roots.add(toNode(current, current.nodes().get(rootId)));
+        }
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(roots);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        serialized = new SerializedHierarchy(current.version(), "\"" + sha256(json) + "\"", json);
+        hierarchy = serialized;
+        return serialized;
+    }
+
+    /**
+     * Mark the snapshot as outdated, now and again once the current transaction commits. A snapshot is tagged with
+     * the version read before loading it, so one loaded from the previous state before the commit is older than the
+     * version bumped after it, and is rebuilt by the next read instead of being served.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void invalidate() {
+        TransactionHooks.nowAndAfterCommit(version::incrementAndGet);
+    }
+
+    private Tree current() {
+        Tree current = tree;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        if (current != null && !rebuildLock.tryLock()) {
+            // Being rebuilt by another reader
+            return current;
+        }
+        if (current == null) {
+            rebuildLock.lock();
+        }
+        try {
+            current = tree;
+            if (current == null || current.version() != version.get()) {
+                current = load(version.get());
+                tree = current;
+            }
+            return current;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Tree load(long loadedVersion) {
+        Map<Long, NodeBuilder> builders = new LinkedHashMap<>();
+        for (Object[] row : categoryRepository.findAllTreeRows()) {
+            Long id = (Long) row[0];
+            builders.put(id, new NodeBuilder(id, (String) row[1], (String) row[2], Boolean.TRUE.equals(row[3]), (Long) row[4]));
+        }
+        for (Object[] row : categoryRepository.countProductsGroupByCategoryId()) {
+            NodeBuilder builder = builders.get((Long) row[0]);
+            if (builder != null) {
+                builder.directProductCount = ((Number) row[1]).longValue();
+            }
+        }
+        List<Long> rootIds = new ArrayList<>();
+        for (NodeBuilder builder : builders.values()) {
+            NodeBuilder parent = builder.parentId != null ? builders.get(builder.parentId) : null;
+            if (parent != null) {
+                parent.childIds.add(builder.id);
+            } else {
+                rootIds.add(builder.id);
+            }
+        }
+
+        Map<Long, Long> productCounts = new HashMap<>();
+        Map<Long, Node> nodes = new LinkedHashMap<>();
+        for (NodeBuilder builder : builders.values()) {
+            long productCount = countProducts(builders, builder, productCounts, new HashSet<>());
+            nodes.put(
+                builder.id,
+                new Node(
+                    builder.id,
+                    builder.name,
+                    builder.image,
+                    builder.active,
+                    builder.parentId,
+                    List.copyOf(builder.childIds),
+                    builder.directProductCount,
+                    productCount
+                )
+            );
+        }
+        LOG.debug("Category tree rebuilt with {} categories", nodes.size());
+        return new Tree(loadedVersion, Map.copyOf(nodes), List.copyOf(rootIds), List.copyOf(nodes.keySet()));
+    }
+
+    /**
+     * Count the products of a category and of its active subcategories, recursively. A category met again on the way
+     * down, which only happens with a cycle of parents, is not counted twice.
+     */
+    private long countProducts(Map<Long, NodeBuilder> builders, NodeBuilder builder, Map<Long, Long> productCounts, Set<Long> path) {
+        Long known = productCounts.get(builder.id);
+        if (known != null) {
+            return known;
+        }
+        if (!path.add(builder.id)) {
+            return 0;
+        }
+        long count = builder.directProductCount;
+        for (Long childId : builder.childIds) {
+            NodeBuilder child = builders.get(childId);
+            if (child.active) {
+                count += countProducts(builders, child, productCounts, path);
+            }
+        }
+        path.remove(builder.id);
+        productCounts.put(builder.id, count);
+        return count;
+    }
+
+    private static List<CategoryDTO> toDtos(Tree current, Iterable<Long> ids, Predicate<Node> filter, boolean recursiveCounts) {
+        List<CategoryDTO> result = new ArrayList<>();
+        for (Long id : ids) {
+            Node node = current.nodes().get(id);
+            if (filter.test(node)) {
+                CategoryDTO dto = new CategoryDTO();
+                dto.setId(node.id());
+                dto.setName(node.name());
+                dto.setImage(node.image());
+                dto.setIsActive(node.active());
+                dto.setParentId(node.parentId());
+                dto.setProductCount(recursiveCounts ? node.productCount() : node.directProductCount());
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Build the node of a category and its subtree. Only the categories reachable from a root are visited, so a
+     * cycle of parents cannot be met.
+     */
+    private static CategoryNodeDTO toNode(Tree current, Node node) {
+        CategoryNodeDTO dto = new CategoryNodeDTO();
+        dto.setId(node.id());
+        dto.setName(node.name());
+        dto.setImage(node.image());
+        dto.setIsActive(node.active());
+        dto.setProductCount(node.productCount());
+        for (Long childId : node.childIds()) {
+            dto.getChildren().add(toNode(current, current.nodes().get(childId)));
+        }
+        return dto;
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The category hierarchy of a snapshot, serialized as JSON, with its strong entity tag, quoted.
+     */
+    public record SerializedHierarchy(long version, String etag, byte[] json) {}
+
+    private record Node(
+        Long id,
+        String name,
+        String image,
+        boolean active,
+        Long parentId,
+        List<Long> childIds,
+        long directProductCount,
+        long productCount
+    ) {}
+
+    /**
+     * A snapshot of the tree, with the ids of the categories in ascending order.
+     */
+    private record Tree(long version, Map<Long, Node> nodes, List<Long> rootIds, List<Long> ids) {}
+
+    private static final class NodeBuilder {
+
+        private final Long id;
+        private final String name;
+        private final String image;
+        private final boolean active;
+        private final Long parentId;
+        private final List<Long> childIds = new ArrayList<>();
+        private long directProductCount;
+
+        private NodeBuilder(Long id, String name, String image, boolean active, Long parentId) {
+            this.id = id;
+            this.name = name;
+            this.image = image;
+            this.active = active;
+            this.parentId = parentId;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.quattrinh.shop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quattrinh.shop.domain.CheckoutIdempotencyKey;
+import com.quattrinh.shop.repository.CheckoutIdempotencyKeyRepository;
+import com.quattrinh.shop.service.dto.ShopOrderDTO;
+import com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service deduplicating checkouts sent with an {@code Idempotency-Key} header.
+ * <p>
+ * Completed keys are looked up in a hot cache, then in the {@code checkout_idempotency_keys} table, and replayed
+ * without touching inventory. A duplicate arriving while the first checkout with the same key is still running
+ * waits for that execution instead of starting its own. This service is deliberately not transactional: the
+ * waiters must only be released once the order has been committed.
+ * <p>
+ * Each key records a hash of the request first sent with it: reusing the key for a different request is rejected
+ * with an {@link IdempotencyKeyReusedException} instead of replaying the first order. Keys are purged after
+ * {@link #KEY_RETENTION}, after which the same key creates a new order.
+ */
+@Service
+public class CheckoutIdempotencyService {
+
+    public static final String ORDER_ID_BY_KEY_CACHE = "checkoutOrderIdByIdempotencyKey";
+
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+
+    static final Duration KEY_RETENTION = Duration.ofHours(24);
+
+    private final Logger log = LoggerFactory.getLogger(CheckoutIdempotencyService.class);
+
+    private final ConcurrentMap<String, Execution> inFlight = new ConcurrentHashMap<>();
+
+    private final ShopOrderService shopOrderService;
+
+    private final CheckoutIdempotencyKeyRepository checkoutIdempotencyKeyRepository;
+
+    private final CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper;
+
+    public CheckoutIdempotencyService(
+        ShopOrderService shopOrderService,
+        CheckoutIdempotencyKeyRepository checkoutIdempotencyKeyRepository,
+        CacheManager cacheManager,
+        ObjectMapper objectMapper
+    ) {
+        this.shopOrderService = shopOrderService;
+        this.checkoutIdempotencyKeyRepository = checkoutIdempotencyKeyRepository;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Create an order from checkout at most once per user and idempotency key.
+     *
+     * @param idempotencyKey the key sent by the client.
+     * @param checkoutRequest the checkout request.
+     * @return the order created by the first execution with this key.
+     * @throws IdempotencyKeyReusedException if the key was already used for a different request.
+     */
+    public ShopOrderDTO checkout(String idempotencyKey, CheckoutRequest checkoutRequest) {
+        String key = checkoutRequest.getUserId() + ":" + idempotencyKey;
+        String requestHash = hash(checkoutRequest);
+
+        Optional<Long> completedOrderId = findCompletedOrderId(key, requestHash);
+        if (completedOrderId.isPresent()) {
+            log.debug("Replaying checkout for idempotency key: {}", key);
+            return loadOrder(completedOrderId.get());
+        }
+
+        Execution execution = new Execution(requestHash, new CompletableFuture<>());
+        Execution running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            log.debug("Waiting for in-flight checkout with idempotency key: {}", key);
+            return loadOrder(await(running.result()));
+        }
+
+        try {
+            // The previous owner of the key may have completed between the lookup and the claim
+            Long orderId = findCompletedOrderId(key, requestHash).orElse(null);
+            if (orderId == null) {
+                orderId = executeOnce(key, checkoutRequest, requestHash);
+            }
+            getCache().put(key, new CompletedCheckout(orderId, requestHash));
+            execution.result().complete(orderId);
+            return loadOrder(orderId);
+        } catch (RuntimeException e) {
+            execution.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    /**
+     * Delete the idempotency keys older than {@link #KEY_RETENTION}.
+     * <p>
+     * This is scheduled to run every hour, at quarter past.
+     */
+    @Scheduled(cron = "0 15 * * * ?")
+    @Transactional
+    public void purgeExpiredKeys() {
+        int deleted = checkoutIdempotencyKeyRepository.deleteByCreatedAtBefore(Instant.now().minus(KEY_RETENTION));
+        if (deleted > 0) {
+            log.debug("Deleted {} expired checkout idempotency keys", deleted);
+            // The purged keys may still be cached, and must not replay their order anymore
+            TransactionHooks.afterCommit(() -> getCache().clear());
+        }
+    }
+
+    private Long executeOnce(String key, CheckoutRequest checkoutRequest, String requestHash) {
+        try {
+            return shopOrderService.createOrderFromCheckout(checkoutRequest, key, requestHash).getId();
+        } catch (DataIntegrityViolationException e) {
+            // Another node committed a checkout with the same key first
+            CheckoutIdempotencyKey completed = checkoutIdempotencyKeyRepository.findCompletedByKey(key).orElseThrow(() -> e);
+            checkSameRequest(completed.getRequestHash(), requestHash);
+            return completed.getOrderId();
+        }
+    }
+
+    private Optional<Long> findCompletedOrderId(String key, String requestHash) {
+        CompletedCheckout completed = getCache().get(key, CompletedCheckout.class);
+        if (completed == null) {
+            completed = checkoutIdempotencyKeyRepository
+                .findCompletedByKey(key)
+                .map(k -> new CompletedCheckout(k.getOrderId(), k.getRequestHash()))
+                .orElse(null);
+            if (completed == null) {
+                return Optional.empty();
+            }
+            getCache().put(key, completed);
+        }
+        checkSameRequest(completed.requestHash(), requestHash);
+        return Optional.of(completed.orderId());
+    }
+
+    /**
+     * Keys claimed before the request hashes were recorded have none, and are not checked.
+     */
+    private static void checkSameRequest(String claimedHash, String requestHash) {
+        if (claimedHash != null && !claimedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReusedException();
+        }
+    }
+
+    private String hash(CheckoutRequest checkoutRequest) {
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(checkoutRequest);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Long await(CompletableFuture<Long> running) {
+        try {
+            return running.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Checkout with the same idempotency key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ShopOrderDTO loadOrder(Long orderId) {
+        return shopOrderService.findOne(orderId).orElseThrow(() -> new RuntimeException("Order not found"));
+    }
+
+    private Cache getCache() {
+        return Objects.requireNonNull(cacheManager.getCache(ORDER_ID_BY_KEY_CACHE));
+    }
+
+    private record Execution(String requestHash, CompletableFuture<Long> result) {}
+
+    /**
+     * Cached, so must be serializable.
+     */
+    private record CompletedCheckout(Long orderId, String requestHash) implements Serializable {}
+}
@@ -0,0 +1,10 @@
+package com.quattrinh.shop.service;
+
+public class CheckoutQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CheckoutQueueFullException() {
+        super("Checkout queue is full, please retry later");
+    }
+}
@@ -0,0 +1,224 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.config.ApplicationProperties;
+import com.quattrinh.shop.service.dto.CheckoutTicketDTO;
+import com.quattrinh.shop.service.dto.CheckoutTicketDTO.Status;
+import com.quattrinh.shop.service.dto.ShopOrderDTO;
+import com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest;
+import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service accepting checkouts into a bounded in-process queue, so peak traffic does not hold a database connection
+ * per request for the whole checkout.
+ * <p>
+ * Worker threads drain the queue and commit up to {@code batch-size} orders per transaction, reserving the stock of
+ * the whole batch in ascending variant id order like a single checkout does. When a micro-batch fails, for example
+ * because one checkout runs out of stock, its checkouts are replayed one transaction each so only the faulty one is
+ * marked {@link Status#FAILED}, with a stable error key. Tickets are kept in memory and expire after
+ * {@code ticket-time-to-live-seconds} once finished.
+ */
+@Service
+public class CheckoutQueueService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckoutQueueService.class);
+
+    private final ApplicationProperties.Checkout.Async properties;
+
+    private final ShopOrderService shopOrderService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<QueuedCheckout> queue;
+
+    private final ConcurrentMap<String, CheckoutTicketDTO> tickets = new ConcurrentHashMap<>();
+
+    private ExecutorService workers;
+
+    private volatile boolean running;
+
+    public CheckoutQueueService(
+        ApplicationProperties applicationProperties,
+        ShopOrderService shopOrderService,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.properties = applicationProperties.getCheckout().getAsync();
+        this.shopOrderService = shopOrderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int workerCount = Math.max(1, properties.getWorkers());
+        LOG.info("Starting {} asynchronous checkout workers, queue capacity {}", workerCount, properties.getQueueCapacity());
+        running = true;
+        workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("f-shop-checkout-"));
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Enqueue a validated checkout.
+     *
+     * @param checkoutRequest the checkout request.
+     * @return the ticket to poll for the checkout result.
+     * @throws CheckoutQueueFullException if the queue is full.
+     */
+    public CheckoutTicketDTO enqueue(CheckoutRequest checkoutRequest) {
+        Instant now = Instant.now();
+        CheckoutTicketDTO ticket = new CheckoutTicketDTO(UUID.randomUUID().toString(), Status.QUEUED, null, null, now, now);
+        tickets.put(ticket.getTicketId(), ticket);
+        if (!queue.offer(new QueuedCheckout(ticket.getTicketId(), checkoutRequest))) {
+            tickets.remove(ticket.getTicketId());
+            throw new CheckoutQueueFullException();
+        }
+        LOG.debug("Queued checkout ticket {} for user: {}", ticket.getTicketId(), checkoutRequest.getUserId());
+        return ticket;
+    }
+
+    /**
+     * Get the current state of a ticket.
+     *
+     * @param ticketId the id of the ticket.
+     * @return the ticket, empty if unknown or expired.
+     */
+    public Optional<CheckoutTicketDTO> findTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    /**
+     * Forget finished tickets older than the configured time to live.
+     * <p>
+     * This is scheduled to run every minute.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void removeExpiredTickets() {
+        Instant expiry = Instant.now().minusSeconds(properties.getTicketTimeToLiveSeconds());
+        tickets.values().removeIf(ticket -> isFinished(ticket) && ticket.getUpdatedAt().isBefore(expiry));
+    }
+
+    private static boolean isFinished(CheckoutTicketDTO ticket) {
+        return ticket.getStatus() == Status.COMPLETED || ticket.getStatus() == Status.FAILED;
+    }
+
+    private void drain() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<QueuedCheckout> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                QueuedCheckout first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Unexpected error in checkout worker", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<QueuedCheckout> batch) {
+        batch.forEach(checkout -> update(checkout.ticketId(), Status.PROCESSING, null, null));
+        if (batch.size() == 1) {
+            processOne(batch.get(0));
+            return;
+        }
+        List<Long> orderIds;
+        try {
+            List<CheckoutRequest> requests = batch.stream().map(QueuedCheckout::request).toList();
+            orderIds = transactionTemplate.execute(status ->
+                shopOrderService.createOrdersFromCheckouts(requests).stream().map(ShopOrderDTO::getId).toList()
+            );
+        } catch (RuntimeException e) {
+            LOG.debug("Checkout micro-batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::processOne);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            update(batch.get(i).ticketId(), Status.COMPLETED, orderIds.get(i), null);
+        }
+    }
+
+    private void processOne(QueuedCheckout checkout) {
+        try {
+            ShopOrderDTO order = transactionTemplate.execute(status -> shopOrderService.createOrderFromCheckout(checkout.request()));
+            update(checkout.ticketId(), Status.COMPLETED, order.getId(), null);
+        } catch (RuntimeException e) {
+            String errorKey = errorKey(e);
+            if (errorKey != null) {
+                LOG.warn("Asynchronous checkout {} failed: {}", checkout.ticketId(), e.getMessage());
+            } else {
+                LOG.error("Asynchronous checkout {} failed", checkout.ticketId(), e);
+                errorKey = "checkoutfailed";
+            }
+            update(checkout.ticketId(), Status.FAILED, null, errorKey);
+        }
+    }
+
+    /**
+     * The error key of a business failure, shown on the ticket instead of the exception message, which may hold
+     * database details; {@code null} for an unexpected failure.
+     */
+    private static String errorKey(RuntimeException e) {
+        if (e instanceof InsufficientStockException) {
+            return "stocknotavailable";
+        }
+        if (e instanceof BadRequestAlertException badRequestAlertException) {
+            return badRequestAlertException.getErrorKey();
+        }
+        return null;
+    }
+
+    private void update(String ticketId, Status status, Long orderId, String error) {
+        tickets.computeIfPresent(ticketId, (id, ticket) ->
+            new CheckoutTicketDTO(id, status, orderId, error, ticket.getCreatedAt(), Instant.now())
+        );
+    }
+
+    private record QueuedCheckout(String ticketId, CheckoutRequest request) {}
+}
@@ -0,0 +1,91 @@
+package com.quattrinh.shop.service;
+
+import java.util.Objects;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * A cache of values loaded from the database, whose loads cannot put back a state older than an eviction.
+ * <p>
+ * Evicting only before and after a commit is not enough: a read that loaded the previous state before the commit can
+ * still put it after the second eviction, where it would stay until it expires. So every key has a generation, bumped
+ * by each eviction: a reader takes the generation of the key with {@link #generation(Object)} before loading, and
+ * {@link #put(Object, Object, long)} drops the value if the key was evicted since. Generations are striped, so an
+ * eviction may also drop the load of another key of the same stripe, which is only loaded again on the next read.
+ */
+final class GuardedCache {
+
+    private static final int STRIPES = 256;
+
+    private final CacheManager cacheManager;
+
+    private final String name;
+
+    private final long[] generations = new long[STRIPES];
+
+    private final Object[] locks = new Object[STRIPES];
+
+    GuardedCache(CacheManager cacheManager, String name) {
+        this.cacheManager = cacheManager;
+        this.name = name;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    <T> T get(Object key, Class<T> type) {
+        return getCache().get(key, type);
+    }
+
+    /**
+     * @return the generation of the key, to take before loading its value.
+     */
+    long generation(Object key) {
+        int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            return generations[stripe];
+        }
+    }
+
+    /**
+     * Put a loaded value, unless the key was evicted since its generation was taken.
+     *
+     * @return whether the value was put.
+     */
+    boolean put(Object key, Object value, long generation) {
+        int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            if (generations[stripe] != generation) {
+                return false;
+            }
+            getCache().put(key, value);
+            return true;
+        }
+    }
+
+    void evict(Object key) {
+        int stripe = stripe(key);
+        synchronized (locks[stripe]) {
+            generations[stripe]++;
+            getCache().evict(key);
+        }
+    }
+
+    void clear() {
+        // Every stripe is bumped before clearing, so no load started before can be put after
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                generations[stripe]++;
+            }
+        }
+        getCache().clear();
+    }
+
+    private static int stripe(Object key) {
+        return Math.floorMod(Objects.hashCode(key), STRIPES);
+    }
+
+    private Cache getCache() {
+        return Objects.requireNonNull(cacheManager.getCache(name));
+    }
+}
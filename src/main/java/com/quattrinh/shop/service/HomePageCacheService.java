@@ -0,0 +1,151 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.config.ApplicationProperties;
+import com.quattrinh.shop.service.ProductRankingService.Section;
+import com.quattrinh.shop.service.dto.ProductDTO;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+/**
+ * Stale-while-revalidate cache of the data requested by every visit of the home page: the product sections and the
+ * product statistics.
+ * <p>
+ * A cached value is served as long as it exists; once older than {@code application.catalog.home-cache-ttl-seconds}
+ * it is still served while a reload runs on the task executor. Only one load of a value runs at a time: concurrent
+ * requests for a value not loaded yet wait for the same load, and expired values trigger a single reload.
+ */
+@Service
+public class HomePageCacheService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HomePageCacheService.class);
+
+    private static final String STATS_KEY = "stats";
+
+    private final ProductRankingService productRankingService;
+
+    private final CatalogStatisticsService catalogStatisticsService;
+
+    private final Executor taskExecutor;
+
+    private final Duration timeToLive;
+
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    public HomePageCacheService(
+        ProductRankingService productRankingService,
+        CatalogStatisticsService catalogStatisticsService,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productRankingService = productRankingService;
+        this.catalogStatisticsService = catalogStatisticsService;
+        this.taskExecutor = taskExecutor;
+        this.timeToLive = Duration.ofSeconds(applicationProperties.getCatalog().getHomeCacheTtlSeconds());
+    }
+
+    /**
+     * Get the top products of a home page section.
+     *
+     * @param section the section.
+     * @param limit the number of products, between 1 and {@value ProductRankingService#TOP_K}.
+     * @return the products, best ranked first.
+     * @see ProductRankingService#findTop(Section, int)
+     */
+    @SuppressWarnings("unchecked")
+    public List<ProductDTO> getSection(Section section, int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, ProductRankingService.TOP_K));
+        return (List<ProductDTO>) get(new SectionKey(section, boundedLimit), () -> productRankingService.findTop(section, boundedLimit));
+    }
+
+    /**
+     * Get the product statistics of the home page.
+     *
+     * @return the statistics.
+     * @see CatalogStatisticsService#getProductStats()
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getProductStats() {
+        return (Map<String, Object>) get(STATS_KEY, catalogStatisticsService::getProductStats);
+    }
+
+    private Object get(Object key, Supplier<Object> loader) {
+        Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+        Loaded loaded = entry.loaded;
+        if (loaded == null) {
+            try {
+                return entry.load(key, loader, Runnable::run).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        if (loaded.at().plus(timeToLive).isBefore(Instant.now())) {
+            entry.load(key, loader, taskExecutor);
+        }
+        return loaded.value();
+    }
+
+    private record SectionKey(Section section, int limit) {}
+
+    private record Loaded(Object value, Instant at) {}
+
+    private static final class Entry {
+
+        private volatile Loaded loaded;
+
+        private final AtomicReference<CompletableFuture<Object>> inFlight = new AtomicReference<>();
+
+        /**
+         * Start a load on the executor, unless one is already running.
+         *
+         * @return the running load.
+         */
+        CompletableFuture<Object> load(Object key, Supplier<Object> loader, Executor executor) {
+            while (true) {
+                CompletableFuture<Object> running = inFlight.get();
+                if (running != null) {
+                    return running;
+                }
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                if (inFlight.compareAndSet(null, future)) {
+                    Runnable task = () -> {
+                        try {
+                            Object value = loader.get();
+                            loaded = new Loaded(value, Instant.now());
+                            future.complete(value);
+                        } catch (RuntimeException e) {
+                            // The previous value, if any, keeps being served
+                            LOG.warn("Could not load the home page cache entry {}: {}", key, e.getMessage());
+                            future.completeExceptionally(e);
+                        } finally {
+                            inFlight.set(null);
+                        }
+                    };
+                    try {
+                        executor.execute(task);
+                    } catch (RejectedExecutionException e) {
+                        inFlight.set(null);
+                        future.completeExceptionally(e);
+                    }
+                    return future;
+                }
+            }
+        }
+    }
+}
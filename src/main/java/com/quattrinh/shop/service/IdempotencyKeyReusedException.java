@@ -0,0 +1,10 @@
+package com.quattrinh.shop.service;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException() {
+        super("Idempotency-Key already used for a different checkout request");
+    }
+}
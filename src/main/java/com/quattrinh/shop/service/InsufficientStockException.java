@@ -0,0 +1,17 @@
+package com.quattrinh.shop.service;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long variantId;
+
+    public InsufficientStockException(Long variantId) {
+        super("Not enough available stock for variant: " + variantId);
+        this.variantId = variantId;
+    }
+
+    public Long getVariantId() {
+        return variantId;
+    }
+}
@@ -7,10 +7,12 @@ import com.quattrinh.shop.service.criteria.InventoryTransactionCriteria;
 import com.quattrinh.shop.service.dto.InventoryTransactionDTO;
 import com.quattrinh.shop.service.mapper.InventoryTransactionMapper;
 import jakarta.persistence.criteria.JoinType;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -53,6 +55,30 @@ public class InventoryTransactionQueryService extends QueryService<InventoryTran
         return inventoryTransactionRepository.findAllWithToOneRelationships(page).map(inventoryTransactionMapper::toDto);
     }
 
+    /**
+     * Return a keyset page of {@link InventoryTransactionDTO} which matches the criteria from the database, ordered by id.
+     * No count query is run, so the cost of a page does not depend on its position.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId The id of the last entity of the previous page, or {@code null} for the first page.
+     * @param size The size of the page.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<InventoryTransactionDTO> findByCriteriaAfter(InventoryTransactionCriteria criteria, Long afterId, int size) {
+        LOG.debug("find by criteria : {}, after: {}, size: {}", criteria, afterId, size);
+        Specification<InventoryTransaction> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and((root, query, builder) -> builder.greaterThan(root.get(InventoryTransaction_.id), afterId));
+        }
+        return inventoryTransactionRepository
+            .findBy(specification, q ->
+                q.sortBy(Sort.by(InventoryTransaction_.ID)).project("variant", "variant.product", "order").limit(size).all()
+            )
+            .stream()
+            .map(inventoryTransactionMapper::toDto)
+            .toList();
+    }
+
     /**
      * Return the number of matching entities in the database.
      * @param criteria The object which holds all the filters, which the entities should match.
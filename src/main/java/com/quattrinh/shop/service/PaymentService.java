@@ -114,6 +114,18 @@ public class PaymentService {
             .findById(orderId)
             .orElseThrow(() -> new RuntimeException("Order not found"));
 
+        return createPaymentForOrder(order, paymentMethod, amount);
+    }
+
+    /**
+     * Create payment for an already loaded order.
+     *
+     * @param order the order.
+     * @param paymentMethod the payment method.
+     * @param amount the payment amount.
+     * @return the created payment.
+     */
+    public PaymentDTO createPaymentForOrder(com.quattrinh.shop.domain.ShopOrder order, String paymentMethod, java.math.BigDecimal amount) {
         // Create payment
         com.quattrinh.shop.domain.Payment payment = new com.quattrinh.shop.domain.Payment();
         payment.setOrder(order);
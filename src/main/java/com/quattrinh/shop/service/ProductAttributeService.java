@@ -23,9 +23,20 @@ public class ProductAttributeService {
 
     private final ProductAttributeMapper productAttributeMapper;
 
-    public ProductAttributeService(ProductAttributeRepository productAttributeRepository, ProductAttributeMapper productAttributeMapper) {
+    private final ProductDetailService productDetailService;
+
+    private final ProductFacetService productFacetService;
+
+    public ProductAttributeService(
+        ProductAttributeRepository productAttributeRepository,
+        ProductAttributeMapper productAttributeMapper,
+        ProductDetailService productDetailService,
+        ProductFacetService productFacetService
+    ) {
         this.productAttributeRepository = productAttributeRepository;
         this.productAttributeMapper = productAttributeMapper;
+        this.productDetailService = productDetailService;
+        this.productFacetService = productFacetService;
     }
 
     /**
@@ -49,6 +60,9 @@ public class ProductAttributeService {
      */
     public ProductAttributeDTO update(ProductAttributeDTO productAttributeDTO) {
         LOG.debug("Request to update ProductAttribute : {}", productAttributeDTO);
+        // The attribute name is copied into the detail of every product using it
+        productDetailService.evictAll();
+        productFacetService.invalidate();
         ProductAttribute productAttribute = productAttributeMapper.toEntity(productAttributeDTO);
         productAttribute = productAttributeRepository.save(productAttribute);
         return productAttributeMapper.toDto(productAttribute);
@@ -62,6 +76,8 @@ public class ProductAttributeService {
      */
     public Optional<ProductAttributeDTO> partialUpdate(ProductAttributeDTO productAttributeDTO) {
         LOG.debug("Request to partially update ProductAttribute : {}", productAttributeDTO);
+        productDetailService.evictAll();
+        productFacetService.invalidate();
 
         return productAttributeRepository
             .findById(productAttributeDTO.getId())
@@ -121,6 +137,8 @@ public class ProductAttributeService {
      */
     public void delete(Long id) {
         LOG.debug("Request to delete ProductAttribute : {}", id);
+        productDetailService.evictAll();
+        productFacetService.invalidate();
         productAttributeRepository.deleteById(id);
     }
 }
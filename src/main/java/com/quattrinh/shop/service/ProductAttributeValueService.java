@@ -3,6 +3,7 @@ package com.quattrinh.shop.service;
 import com.quattrinh.shop.domain.ProductAttribute;
 import com.quattrinh.shop.domain.ProductAttributeValue;
 import com.quattrinh.shop.repository.ProductAttributeValueRepository;
+import com.quattrinh.shop.repository.ProductVariantRepository;
 import com.quattrinh.shop.service.dto.ProductAttributeValueDTO;
 import com.quattrinh.shop.service.dto.ProductAttributeValueRequestDTO;
 import com.quattrinh.shop.service.mapper.ProductAttributeValueMapper;
@@ -27,12 +28,24 @@ public class ProductAttributeValueService {
 
     private final ProductAttributeValueMapper productAttributeValueMapper;
 
+    private final ProductVariantRepository productVariantRepository;
+
+    private final ProductDetailService productDetailService;
+
+    private final ProductFacetService productFacetService;
+
     public ProductAttributeValueService(
         ProductAttributeValueRepository productAttributeValueRepository,
-        ProductAttributeValueMapper productAttributeValueMapper
+        ProductAttributeValueMapper productAttributeValueMapper,
+        ProductVariantRepository productVariantRepository,
+        ProductDetailService productDetailService,
+        ProductFacetService productFacetService
     ) {
         this.productAttributeValueRepository = productAttributeValueRepository;
         this.productAttributeValueMapper = productAttributeValueMapper;
+        this.productVariantRepository = productVariantRepository;
+        this.productDetailService = productDetailService;
+        this.productFacetService = productFacetService;
     }
 
     /**
@@ -58,6 +71,8 @@ public class ProductAttributeValueService {
      */
     public ProductAttributeValueDTO update(Long id, ProductAttributeValueRequestDTO productAttributeValueDTO) {
         LOG.debug("Request to update ProductAttributeValue : {}", productAttributeValueDTO);
+        productDetailService.evict(productVariantRepository.findProductIdsByAttributeValueId(id));
+        productFacetService.invalidate();
         ProductAttributeValue productAttributeValue = new ProductAttributeValue()
             .id(id)
             .value(productAttributeValueDTO.getValue())
@@ -74,6 +89,8 @@ public class ProductAttributeValueService {
      */
     public Optional<ProductAttributeValueDTO> partialUpdate(ProductAttributeValueDTO productAttributeValueDTO) {
         LOG.debug("Request to partially update ProductAttributeValue : {}", productAttributeValueDTO);
+        productDetailService.evict(productVariantRepository.findProductIdsByAttributeValueId(productAttributeValueDTO.getId()));
+        productFacetService.invalidate();
 
         return productAttributeValueRepository
             .findById(productAttributeValueDTO.getId())
@@ -114,6 +131,8 @@ public class ProductAttributeValueService {
      */
     public void delete(Long id) {
         LOG.debug("Request to delete ProductAttributeValue : {}", id);
+        productDetailService.evict(productVariantRepository.findProductIdsByAttributeValueId(id));
+        productFacetService.invalidate();
         productAttributeValueRepository.deleteById(id);
     }
 }
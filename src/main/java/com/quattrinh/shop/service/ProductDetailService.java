@@ -0,0 +1,218 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.domain.ProductAttributeValue;
+import com.quattrinh.shop.domain.ProductVariant;
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.repository.ProductVariantRepository;
+import com.quattrinh.shop.repository.ProductVariantRepository.StockLevel;
+import com.quattrinh.shop.service.dto.ProductDTO;
+import com.quattrinh.shop.service.dto.ProductDetailDTO;
+import com.quattrinh.shop.service.mapper.ProductMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service building the product detail page.
+ * <p>
+ * The detail of a product is projected once into a {@link ProductDetailDTO} kept in a bounded cache; only the stock
+ * levels of its variants are read again on each request. Services changing a product, its variants or their attribute
+ * values must evict it, which also evicts the variant matrix of {@link ProductVariantMatrixService}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductDetailService {
+
+    public static final String PRODUCT_DETAIL_CACHE = "productDetail";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductDetailService.class);
+
+    private final ProductRepository productRepository;
+
+    private final ProductVariantRepository productVariantRepository;
+
+    private final ProductMapper productMapper;
+
+    private final ProductVariantMatrixService productVariantMatrixService;
+
+    private final GuardedCache detailCache;
+
+    public ProductDetailService(
+        ProductRepository productRepository,
+        ProductVariantRepository productVariantRepository,
+        ProductMapper productMapper,
+        ProductVariantMatrixService productVariantMatrixService,
+        CacheManager cacheManager
+    ) {
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.productMapper = productMapper;
+        this.productVariantMatrixService = productVariantMatrixService;
+        this.detailCache = new GuardedCache(cacheManager, PRODUCT_DETAIL_CACHE);
+    }
+
+    /**
+     * Get the detail of a product, with the current stock levels of its variants.
+     *
+     * @param id the id of the product.
+     * @return the product detail, or empty if the product does not exist.
+     */
+    public Optional<ProductDetailDTO> getProductDetail(Long id) {
+        LOG.debug("Request to get Product Detail : {}", id);
+        ProductDetailDTO projection = detailCache.get(id, ProductDetailDTO.class);
+        if (projection == null) {
+            long generation = detailCache.generation(id);
+            Optional<Product> product = productRepository.findOneWithEagerRelationships(id);
+            if (product.isEmpty()) {
+                return Optional.empty();
+            }
+            projection = toProjection(product.get());
+            detailCache.put(id, projection, generation);
+        }
+        return Optional.of(withStockLevels(projection, productVariantRepository.findStockLevelsByProductId(id)));
+    }
+
+    /**
+     * Evict the detail of a product, now and again once the current transaction commits. A read that loaded the
+     * previous state meanwhile does not put it back, see {@link GuardedCache}.
+     *
+     * @param productId the id of the product, ignored if {@code null}.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evict(Long productId) {
+        if (productId != null) {
+            evict(List.of(productId));
+        }
+    }
+
+    /**
+     * Evict the detail of several products.
+     *
+     * @param productIds the ids of the products.
+     * @see #evict(Long)
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evict(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        LOG.debug("Evicting Product Detail : {}", productIds);
+        Set<Long> ids = new HashSet<>(productIds);
+        TransactionHooks.nowAndAfterCommit(() -> evictNow(ids));
+    }
+
+    /**
+     * Evict the detail of all products, for changes shared by many products such as an attribute name.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evictAll() {
+        LOG.debug("Evicting all Product Details");
+        TransactionHooks.nowAndAfterCommit(this::clearNow);
+    }
+
+    private ProductDetailDTO toProjection(Product product) {
+        ProductDetailDTO detail = new ProductDetailDTO();
+
+        // The variants are exposed below with their current stock levels, not inside the product
+        ProductDTO productDTO = productMapper.toDto(product);
+        productDTO.setVariants(new HashSet<>());
+        detail.setProduct(productDTO);
+
+        Set<String> images = new LinkedHashSet<>();
+        if (product.getImageUrl() != null) {
+            images.add(product.getImageUrl());
+        }
+        Map<String, Set<String>> attributes = new TreeMap<>();
+        List<ProductDetailDTO.Variant> variants = new ArrayList<>();
+
+        List<ProductVariant> sortedVariants = product.getVariants().stream().sorted(Comparator.comparing(ProductVariant::getId)).toList();
+        for (ProductVariant variant : sortedVariants) {
+            ProductDetailDTO.Variant variantDetail = new ProductDetailDTO.Variant();
+            variantDetail.setId(variant.getId());
+            variantDetail.setSku(variant.getSku());
+            variantDetail.setPrice(variant.getPrice());
+            variantDetail.applyStock(variant.getStock(), variant.getReserved());
+            variantDetail.setImageUrl(variant.getImageUrl());
+            variantDetail.setIsActive(variant.getIsActive());
+            if (variant.getImageUrl() != null) {
+                images.add(variant.getImageUrl());
+            }
+
+            List<ProductDetailDTO.AttributeValue> attributeValues = new ArrayList<>();
+            for (ProductAttributeValue attributeValue : variant.getAttributeValues()) {
+                String attributeName = attributeValue.getAttribute().getName();
+                attributeValues.add(
+                    new ProductDetailDTO.AttributeValue(
+                        attributeValue.getId(),
+                        attributeValue.getValue(),
+                        attributeValue.getAttribute().getId(),
+                        attributeName
+                    )
+                );
+                attributes.computeIfAbsent(attributeName, name -> new TreeSet<>()).add(attributeValue.getValue());
+            }
+            variantDetail.setAttributeValues(List.copyOf(attributeValues));
+            variants.add(variantDetail);
+        }
+
+        detail.setVariants(variants);
+        detail.setImages(List.copyOf(images));
+        Map<String, List<String>> attributeValuesByName = new LinkedHashMap<>();
+        attributes.forEach((name, values) -> attributeValuesByName.put(name, List.copyOf(values)));
+        detail.setAttributes(attributeValuesByName);
+        return detail;
+    }
+
+    /**
+     * Copy the cached projection with the given stock levels; the cached instance itself is never modified.
+     */
+    private ProductDetailDTO withStockLevels(ProductDetailDTO projection, List<StockLevel> stockLevels) {
+        Map<Long, StockLevel> stockLevelById = stockLevels.stream().collect(Collectors.toMap(StockLevel::getId, Function.identity()));
+        ProductDetailDTO detail = new ProductDetailDTO();
+        detail.setProduct(projection.getProduct());
+        detail.setImages(projection.getImages());
+        detail.setAttributes(projection.getAttributes());
+        List<ProductDetailDTO.Variant> variants = new ArrayList<>(projection.getVariants().size());
+        for (ProductDetailDTO.Variant cached : projection.getVariants()) {
+            ProductDetailDTO.Variant variant = new ProductDetailDTO.Variant(cached);
+            StockLevel stockLevel = stockLevelById.get(variant.getId());
+            if (stockLevel != null) {
+                variant.applyStock(stockLevel.getStock(), stockLevel.getReserved());
+            }
+            variants.add(variant);
+        }
+        detail.setVariants(variants);
+        return detail;
+    }
+
+    private void evictNow(Set<Long> ids) {
+        for (Long id : ids) {
+            detailCache.evict(id);
+            productVariantMatrixService.evict(id);
+        }
+    }
+
+    private void clearNow() {
+        detailCache.clear();
+        productVariantMatrixService.evictAll();
+    }
+
+}
@@ -0,0 +1,511 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.config.ApplicationProperties;
+import com.quattrinh.shop.domain.Category;
+import com.quattrinh.shop.domain.ProductAttributeValue;
+import com.quattrinh.shop.repository.CategoryRepository;
+import com.quattrinh.shop.repository.ProductAttributeValueRepository;
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.repository.ProductVariantRepository;
+import com.quattrinh.shop.service.dto.ProductListItemDTO;
+import com.quattrinh.shop.service.dto.ProductFacetsDTO;
+import com.quattrinh.shop.service.dto.ProductFacetsDTO.AttributeFacet;
+import com.quattrinh.shop.service.dto.ProductFacetsDTO.FacetValue;
+import com.quattrinh.shop.service.dto.ProductFacetsDTO.PriceBucket;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service answering faceted catalog queries from in-memory bitmaps.
+ * <p>
+ * Each active variant of an active product, and each active product without active variant, is an offer with a
+ * position; positions are assigned in ascending price order, so a price range is a range of positions. There is one
+ * bitmap of positions per category, per attribute value and for the offers in stock. A query intersects the bitmaps
+ * of the selected facets (values of the same facet are alternatives, facets are combined), and the matching products
+ * are the products of the matching offers, so size and color filters apply to the same variant. Categories are a
+ * property of the product, so they also have a bitmap of product ordinals, which their counts intersect directly.
+ * <p>
+ * The bitmaps are rebuilt by a scheduled task after {@link #invalidate()} is called by catalog changes; in between,
+ * the same task only refreshes the in-stock bitmap, so availability lags stock by up to {@value #REFRESH_DELAY} ms.
+ */
+@Service
+public class ProductFacetService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductFacetService.class);
+
+    private static final long REFRESH_DELAY = 30000;
+
+    private final ProductRepository productRepository;
+
+    private final ProductVariantRepository productVariantRepository;
+
+    private final ProductAttributeValueRepository productAttributeValueRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final ProductListingService productListingService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    /** Held while the bitmaps are rebuilt, so that requests arriving before the first snapshot share one load. */
+    private final Object rebuildLock = new Object();
+
+    private volatile Snapshot snapshot;
+
+    public ProductFacetService(
+        ProductRepository productRepository,
+        ProductVariantRepository productVariantRepository,
+        ProductAttributeValueRepository productAttributeValueRepository,
+        CategoryRepository categoryRepository,
+        ProductListingService productListingService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.productAttributeValueRepository = productAttributeValueRepository;
+        this.categoryRepository = categoryRepository;
+        this.productListingService = productListingService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Find the active products matching the selected facets, with the counts of every facet value.
+     *
+     * @param categoryIds the selected categories, any of which must contain the product.
+     * @param attributeValueIds the selected attribute values; for each attribute, a variant must have one of them.
+     * @param minPrice the minimum price, inclusive, or {@code null}.
+     * @param maxPrice the maximum price, inclusive, or {@code null}.
+     * @param inStock whether a matching variant must be in stock.
+     * @param pageable the pagination information of the products, ordered by id.
+     * @return the page of products with the total and the facet counts.
+     */
+    @Transactional(readOnly = true)
+    public ProductFacetsDTO findFacets(
+        Collection<Long> categoryIds,
+        Collection<Long> attributeValueIds,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        boolean inStock,
+        Pageable pageable
+    ) {
+        LOG.debug("Request to get Product facets");
+        Snapshot current = getSnapshot();
+
+        // The filter of each facet, null when nothing is selected
+        BitSet categoryFilter = current.union(current.byCategory, categoryIds);
+        Map<Long, BitSet> attributeFilters = new LinkedHashMap<>();
+        // Keyed by attribute, null for unknown values which match nothing
+        Map<Long, List<Long>> selectedValuesByAttribute = new LinkedHashMap<>();
+        for (Long valueId : attributeValueIds) {
+            Long attributeId = current.attributeOfValue.get(valueId);
+            selectedValuesByAttribute.computeIfAbsent(attributeId, key -> new ArrayList<>()).add(valueId);
+        }
+        selectedValuesByAttribute.forEach((attributeId, valueIds) ->
+            attributeFilters.put(attributeId, current.union(current.byAttributeValue, valueIds))
+        );
+        BitSet priceFilter = minPrice == null && maxPrice == null ? null : current.priceRange(minPrice, maxPrice, true);
+        BitSet stockFilter = inStock ? current.inStock : null;
+
+        ProductFacetsDTO result = new ProductFacetsDTO();
+        BitSet matchingProducts = current.products(
+            intersect(current.size, categoryFilter, priceFilter, stockFilter, attributeFilters.values())
+        );
+        result.setTotal(matchingProducts.cardinality());
+        result.setProducts(findPage(current, matchingProducts, pageable));
+
+        // Reused by every count instead of a copy of the positions per facet value
+        BitSet scratch = new BitSet(current.productIds.length);
+        BitSet withoutCategories = current.products(intersect(current.size, null, priceFilter, stockFilter, attributeFilters.values()));
+        current.categoryNames.forEach((categoryId, name) -> {
+            scratch.clear();
+            scratch.or(withoutCategories);
+            scratch.and(current.productsByCategory.get(categoryId));
+            long count = scratch.cardinality();
+            if (count > 0 || categoryIds.contains(categoryId)) {
+                result.getCategories().add(new FacetValue(categoryId, name, count));
+            }
+        });
+
+        current.valuesByAttribute.forEach((attributeId, valueIds) -> {
+            Map<Long, BitSet> otherAttributeFilters = new LinkedHashMap<>(attributeFilters);
+            otherAttributeFilters.remove(attributeId);
+            BitSet withoutAttribute = intersect(current.size, categoryFilter, priceFilter, stockFilter, otherAttributeFilters.values());
+            List<FacetValue> values = new ArrayList<>();
+            for (Long valueId : valueIds) {
+                long count = current.countProducts(withoutAttribute, current.byAttributeValue.get(valueId), scratch);
+                if (count > 0 || attributeValueIds.contains(valueId)) {
+                    values.add(new FacetValue(valueId, current.valueLabels.get(valueId), count));
+                }
+            }
+            if (!values.isEmpty()) {
+                result.getAttributes().add(new AttributeFacet(attributeId, current.attributeNames.get(attributeId), values));
+            }
+        });
+
+        BitSet withoutPrice = intersect(current.size, categoryFilter, null, stockFilter, attributeFilters.values());
+        List<BigDecimal> bounds = applicationProperties.getCatalog().getFacetPriceBounds();
+        for (int i = 0; i <= bounds.size(); i++) {
+            BigDecimal min = i == 0 ? null : bounds.get(i - 1);
+            BigDecimal max = i == bounds.size() ? null : bounds.get(i);
+            long count = current.countProducts(withoutPrice, current.priceRange(min, max, false), scratch);
+            result.getPriceBuckets().add(new PriceBucket(min, max, count));
+        }
+
+        BitSet withoutStock = intersect(current.size, categoryFilter, priceFilter, null, attributeFilters.values());
+        result.setInStock(current.countProducts(withoutStock, current.inStock, scratch));
+        return result;
+    }
+
+    /**
+     * Mark the bitmaps as outdated after a change of the catalog, so that the next refresh rebuilds them. Stock changes
+     * do not need it.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void invalidate() {
+        // Again once the change is visible: a rebuild clears the flag before reading the catalog, so one that read the
+        // previous state is followed by another
+        TransactionHooks.nowAndAfterCommit(() -> dirty.set(true));
+    }
+
+    /**
+     * Rebuild the bitmaps if the catalog changed, or else refresh the in-stock bitmap.
+     */
+    @Scheduled(initialDelay = 0, fixedDelay = REFRESH_DELAY)
+    @Transactional(readOnly = true)
+    public void refresh() {
+        Snapshot current = snapshot;
+        try {
+            if (current == null || dirty.get()) {
+                rebuild();
+                return;
+            }
+            BitSet inStock = new BitSet(current.size);
+            for (Long variantId : productVariantRepository.findAllAvailableIds()) {
+                Integer position = current.positionByVariant.get(variantId);
+                if (position != null) {
+                    inStock.set(position);
+                }
+            }
+            snapshot = current.withInStock(inStock);
+        } catch (RuntimeException e) {
+            LOG.warn("Could not refresh the product facet bitmaps: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the published snapshot, or else the one loaded by the first request, the others waiting for it.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot published = snapshot;
+        if (published != null) {
+            return published;
+        }
+        synchronized (rebuildLock) {
+            published = snapshot;
+            return published != null ? published : rebuild();
+        }
+    }
+
+    private Snapshot rebuild() {
+        synchronized (rebuildLock) {
+            dirty.set(false);
+            try {
+                Snapshot loaded = load();
+                snapshot = loaded;
+                LOG.debug("Product facet bitmaps rebuilt with {} offers", loaded.size);
+                return loaded;
+            } catch (RuntimeException e) {
+                dirty.set(true);
+                throw e;
+            }
+        }
+    }
+
+    private Snapshot load() {
+        // Offers: the active variants, and the active products without active variant at their base price
+        List<Offer> offers = new ArrayList<>();
+        Map<Long, BigDecimal> basePrices = new HashMap<>();
+        for (Object[] row : productRepository.findAllActiveIdAndBasePrice()) {
+            basePrices.put((Long) row[0], (BigDecimal) row[1]);
+        }
+        Map<Long, BigDecimal> productsWithoutVariant = new HashMap<>(basePrices);
+        for (Object[] row : productVariantRepository.findAllActiveFacetRows()) {
+            Long productId = (Long) row[1];
+            BigDecimal price = row[2] != null ? (BigDecimal) row[2] : basePrices.get(productId);
+            offers.add(new Offer((Long) row[0], productId, price, ((Number) row[3]).intValue() > 0));
+            productsWithoutVariant.remove(productId);
+        }
+        productsWithoutVariant.forEach((productId, price) -> offers.add(new Offer(null, productId, price, false)));
+        offers.sort(
+            Comparator.comparing(Offer::price, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(Offer::productId)
+                .thenComparing(Offer::variantId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        );
+
+        Snapshot loaded = new Snapshot(offers.size(), basePrices.keySet().stream().sorted().mapToLong(Long::longValue).toArray());
+        Map<Long, Integer> productOrdinals = new HashMap<>();
+        for (int i = 0; i < loaded.productIds.length; i++) {
+            productOrdinals.put(loaded.productIds[i], i);
+        }
+        Map<Long, List<Integer>> positionsByProduct = new HashMap<>();
+        for (int position = 0; position < offers.size(); position++) {
+            Offer offer = offers.get(position);
+            loaded.prices[position] = offer.price();
+            if (offer.price() != null) {
+                loaded.priced++;
+            }
+            loaded.productOrdinals[position] = productOrdinals.get(offer.productId());
+            positionsByProduct.computeIfAbsent(offer.productId(), key -> new ArrayList<>()).add(position);
+            if (offer.variantId() != null) {
+                loaded.positionByVariant.put(offer.variantId(), position);
+            }
+            if (offer.inStock()) {
+                loaded.inStock.set(position);
+            }
+        }
+
+        for (Category category : categoryRepository.findByIsActiveTrue()) {
+            loaded.categoryNames.put(category.getId(), category.getName());
+        }
+        for (Object[] row : productRepository.findAllActiveCategoryIds()) {
+            Integer ordinal = productOrdinals.get((Long) row[0]);
+            if (ordinal != null && loaded.categoryNames.containsKey((Long) row[1])) {
+                BitSet bitmap = loaded.byCategory.computeIfAbsent((Long) row[1], key -> new BitSet(loaded.size));
+                positionsByProduct.getOrDefault((Long) row[0], List.of()).forEach(bitmap::set);
+                loaded.productsByCategory.computeIfAbsent((Long) row[1], key -> new BitSet(loaded.productIds.length)).set(ordinal);
+            }
+        }
+        loaded.categoryNames.keySet().retainAll(loaded.byCategory.keySet());
+
+        Map<Long, ProductAttributeValue> attributeValues = new HashMap<>();
+        productAttributeValueRepository.findAllWithToOneRelationships().forEach(value -> attributeValues.put(value.getId(), value));
+        for (Object[] row : productVariantRepository.findAllActiveAttributeValueIds()) {
+            Integer position = loaded.positionByVariant.get((Long) row[0]);
+            ProductAttributeValue value = attributeValues.get((Long) row[1]);
+            if (position == null || value == null || value.getAttribute() == null) {
+                continue;
+            }
+            loaded.byAttributeValue.computeIfAbsent(value.getId(), key -> new BitSet(loaded.size)).set(position);
+            loaded.attributeOfValue.put(value.getId(), value.getAttribute().getId());
+            loaded.valueLabels.put(value.getId(), value.getValue());
+            loaded.attributeNames.put(value.getAttribute().getId(), value.getAttribute().getName());
+        }
+        loaded.attributeOfValue.forEach((valueId, attributeId) ->
+            loaded.valuesByAttribute.computeIfAbsent(attributeId, key -> new ArrayList<>()).add(valueId)
+        );
+        Comparator<Long> byLabel = Comparator.comparing(loaded.valueLabels::get, Comparator.nullsLast(Comparator.naturalOrder()));
+        loaded.valuesByAttribute.values().forEach(valueIds -> valueIds.sort(byLabel));
+        return loaded;
+    }
+
+    private List<ProductListItemDTO> findPage(Snapshot current, BitSet matchingProducts, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            pageable = Pageable.ofSize(20);
+        }
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        long skipped = 0;
+        for (int ordinal = matchingProducts.nextSetBit(0); ordinal >= 0; ordinal = matchingProducts.nextSetBit(ordinal + 1)) {
+            if (skipped++ < pageable.getOffset()) {
+                continue;
+            }
+            ids.add(current.productIds[ordinal]);
+            if (ids.size() == pageable.getPageSize()) {
+                break;
+            }
+        }
+        return productListingService.findByIds(ids);
+    }
+
+    /**
+     * Intersect the filters that are set, all positions matching when none is.
+     */
+    private static BitSet intersect(int size, BitSet categoryFilter, BitSet priceFilter, BitSet stockFilter, Collection<BitSet> others) {
+        BitSet result = new BitSet(size);
+        result.set(0, size);
+        for (BitSet filter : Arrays.asList(categoryFilter, priceFilter, stockFilter)) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        others.forEach(result::and);
+        return result;
+    }
+
+    private record Offer(Long variantId, Long productId, BigDecimal price, boolean inStock) {}
+
+    /**
+     * The bitmaps at a point in time, never modified once published.
+     */
+    private static final class Snapshot {
+
+        private final int size;
+
+        /** Ids of the active products, ascending; the index is the product ordinal. */
+        private final long[] productIds;
+
+        /** Product ordinal of each position. */
+        private final int[] productOrdinals;
+
+        /** Price of each position, ascending with {@code null} last. */
+        private final BigDecimal[] prices;
+
+        /** Number of positions with a price. */
+        private int priced;
+
+        private final Map<Long, Integer> positionByVariant;
+
+        private final Map<Long, BitSet> byCategory;
+
+        /** Product ordinals of each category. */
+        private final Map<Long, BitSet> productsByCategory;
+
+        private final Map<Long, BitSet> byAttributeValue;
+
+        private final BitSet inStock;
+
+        private final Map<Long, String> categoryNames;
+
+        private final Map<Long, Long> attributeOfValue;
+
+        private final Map<Long, List<Long>> valuesByAttribute;
+
+        private final Map<Long, String> valueLabels;
+
+        private final Map<Long, String> attributeNames;
+
+        Snapshot(int size, long[] productIds) {
+            this.size = size;
+            this.productIds = productIds;
+            this.productOrdinals = new int[size];
+            this.prices = new BigDecimal[size];
+            this.positionByVariant = new HashMap<>();
+            this.byCategory = new HashMap<>();
+            this.productsByCategory = new HashMap<>();
+            this.byAttributeValue = new HashMap<>();
+            this.inStock = new BitSet(size);
+            this.categoryNames = new TreeMap<>();
+            this.attributeOfValue = new HashMap<>();
+            this.valuesByAttribute = new TreeMap<>();
+            this.valueLabels = new HashMap<>();
+            this.attributeNames = new HashMap<>();
+        }
+
+        private Snapshot(Snapshot source, BitSet inStock) {
+            this.size = source.size;
+            this.productIds = source.productIds;
+            this.productOrdinals = source.productOrdinals;
+            this.prices = source.prices;
+            this.priced = source.priced;
+            this.positionByVariant = source.positionByVariant;
+            this.byCategory = source.byCategory;
+            this.productsByCategory = source.productsByCategory;
+            this.byAttributeValue = source.byAttributeValue;
+            this.inStock = inStock;
+            this.categoryNames = source.categoryNames;
+            this.attributeOfValue = source.attributeOfValue;
+            this.valuesByAttribute = source.valuesByAttribute;
+            this.valueLabels = source.valueLabels;
+            this.attributeNames = source.attributeNames;
+        }
+
+        Snapshot withInStock(BitSet inStock) {
+            return new Snapshot(this, inStock);
+        }
+
+        /**
+         * @return the union of the bitmaps of the selected keys, or {@code null} when none is selected.
+         */
+        BitSet union(Map<Long, BitSet> bitmaps, Collection<Long> keys) {
+            if (keys.isEmpty()) {
+                return null;
+            }
+            BitSet result = new BitSet(size);
+            for (Long key : keys) {
+                BitSet bitmap = bitmaps.get(key);
+                if (bitmap != null) {
+                    result.or(bitmap);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @param inclusiveMax whether the maximum is inclusive, as for a filter, or exclusive, as for a bucket.
+         * @return the positions priced within the range.
+         */
+        BitSet priceRange(BigDecimal min, BigDecimal max, boolean inclusiveMax) {
+            int from = min == null ? 0 : firstPosition(price -> price.compareTo(min) >= 0);
+            int to = max == null ? priced : firstPosition(price -> inclusiveMax ? price.compareTo(max) > 0 : price.compareTo(max) >= 0);
+            BitSet result = new BitSet(size);
+            if (from < to) {
+                result.set(from, to);
+            }
+            return result;
+        }
+
+        /**
+         * Binary search of the first priced position satisfying a condition that holds from some position on.
+         */
+        private int firstPosition(Predicate<BigDecimal> condition) {
+            int low = 0;
+            int high = priced;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (condition.test(prices[middle])) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the product ordinals of the positions.
+         */
+        BitSet products(BitSet positions) {
+            BitSet products = new BitSet(productIds.length);
+            for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+                products.set(productOrdinals[position]);
+            }
+            return products;
+        }
+
+        /**
+         * @param scratch a bitmap of product ordinals, overwritten.
+         * @return the number of products with a position in both bitmaps.
+         */
+        long countProducts(BitSet positions, BitSet facet, BitSet scratch) {
+            if (facet == null) {
+                return 0;
+            }
+            scratch.clear();
+            for (int position = facet.nextSetBit(0); position >= 0; position = facet.nextSetBit(position + 1)) {
+                if (positions.get(position)) {
+                    scratch.set(productOrdinals[position]);
+                }
+            }
+            return scratch.cardinality();
+        }
+    }
+}
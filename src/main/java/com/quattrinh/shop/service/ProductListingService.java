@@ -0,0 +1,85 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.repository.ProductRepository.ListingRow;
+import com.quattrinh.shop.service.dto.CategoryDTO;
+import com.quattrinh.shop.service.dto.ProductListItemDTO;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service building the products of catalog grids from projections, instead of hydrating the products with their
+ * categories, variants and attribute values.
+ * <p>
+ * A page costs two queries whatever its size: one for the products, their price range and availability, and one for
+ * their categories.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductListingService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductListingService.class);
+
+    private final ProductRepository productRepository;
+
+    public ProductListingService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Get the catalog grid items of products.
+     *
+     * @param ids the ids of the products.
+     * @return the items of the existing products, in the order of the ids.
+     */
+    public List<ProductListItemDTO> findByIds(List<Long> ids) {
+        LOG.debug("Request to get Product listing : {}", ids);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductListItemDTO> items = new HashMap<>();
+        for (ListingRow row : productRepository.findListingRowsByIdIn(ids)) {
+            ProductListItemDTO item = new ProductListItemDTO();
+            item.setId(row.getId());
+            item.setName(row.getName());
+            item.setImageUrl(row.getImageUrl());
+            item.setBasePrice(row.getBasePrice());
+            item.setMinPrice(row.getMinPrice());
+            item.setMaxPrice(row.getMaxPrice());
+            item.setInStock(Boolean.TRUE.equals(row.getInStock()));
+            item.setAverageRating(row.getAverageRating());
+            item.setRatingCount(row.getRatingCount());
+            items.put(item.getId(), item);
+        }
+
+        // One instance per category, shared by all its products
+        Map<Long, CategoryDTO> categories = new HashMap<>();
+        for (Object[] row : productRepository.findCategoryNamesByProductIdIn(ids)) {
+            ProductListItemDTO item = items.get((Long) row[0]);
+            if (item != null) {
+                CategoryDTO category = categories.computeIfAbsent((Long) row[1], id -> {
+                    CategoryDTO categoryDTO = new CategoryDTO();
+                    categoryDTO.setId(id);
+                    categoryDTO.setName((String) row[2]);
+                    return categoryDTO;
+                });
+                item.getCategories().add(category);
+            }
+        }
+
+        List<ProductListItemDTO> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductListItemDTO item = items.get(id);
+            if (item != null) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+}
@@ -5,16 +5,28 @@ import com.quattrinh.shop.domain.Product;
 import com.quattrinh.shop.repository.ProductRepository;
 import com.quattrinh.shop.service.criteria.ProductCriteria;
 import com.quattrinh.shop.service.dto.ProductDTO;
+import com.quattrinh.shop.service.dto.ProductListItemDTO;
 import com.quattrinh.shop.service.mapper.ProductMapper;
+import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import java.util.ArrayList;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.service.QueryService;
+import tech.jhipster.service.filter.LongFilter;
 
 /**
  * Service for executing complex queries for {@link Product} entities in the database.
@@ -32,13 +44,22 @@ public class ProductQueryService extends QueryService<Product> {
 
     private final ProductMapper productMapper;
 
-    public ProductQueryService(ProductRepository productRepository, ProductMapper productMapper) {
+    private final ProductListingService productListingService;
+
+    public ProductQueryService(
+        ProductRepository productRepository,
+        ProductMapper productMapper,
+        ProductListingService productListingService
+    ) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.productListingService = productListingService;
     }
 
     /**
      * Return a {@link Page} of {@link ProductDTO} which matches the criteria from the database.
+     * The page costs one id query, a count query when the total cannot be inferred from the page, and one batched
+     * query per bag relationship.
      * @param criteria The object which holds all the filters, which the entities should match.
      * @param page The page, which should be returned.
      * @return the matching entities.
@@ -47,9 +68,84 @@ public class ProductQueryService extends QueryService<Product> {
     public Page<ProductDTO> findByCriteria(ProductCriteria criteria, Pageable page) {
         LOG.debug("find by criteria : {}, page: {}", criteria, page);
         final Specification<Product> specification = createSpecification(criteria);
-        Page<Product> products = productRepository.findAll(specification, page);
-        System.out.println("call");
-        return productRepository.fetchBagRelationships(productRepository.findAll(specification, page)).map(productMapper::toDto);
+        List<Long> ids = productRepository.findIds(specification, page, page.isPaged() ? page.getPageSize() : Integer.MAX_VALUE);
+        List<ProductDTO> content = productRepository.findAllWithBagRelationshipsByIdIn(ids).stream().map(productMapper::toDto).toList();
+        return PageableExecutionUtils.getPage(content, page, () -> productRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link Slice} of {@link ProductDTO} which matches the criteria from the database, without counting the
+     * matching entities. One extra id is read to tell whether a next slice exists.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> findSliceByCriteria(ProductCriteria criteria, Pageable page) {
+        LOG.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Product> specification = createSpecification(criteria);
+        List<Long> ids = productRepository.findIds(specification, page, page.getPageSize() + 1);
+        boolean hasNext = ids.size() > page.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, page.getPageSize());
+        }
+        List<ProductDTO> content = productRepository.findAllWithBagRelationshipsByIdIn(ids).stream().map(productMapper::toDto).toList();
+        return new SliceImpl<>(content, page, hasNext);
+    }
+
+    /**
+     * Return a {@link Page} of {@link ProductListItemDTO} which matches the criteria from the database, for catalog
+     * grids. The page costs one id query, a count query when the total cannot be inferred from the page, and the two
+     * projection queries of {@link ProductListingService}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductListItemDTO> findListingByCriteria(ProductCriteria criteria, Pageable page) {
+        LOG.debug("find listing by criteria : {}, page: {}", criteria, page);
+        final Specification<Product> specification = createSpecification(criteria);
+        List<Long> ids = productRepository.findIds(specification, page, page.isPaged() ? page.getPageSize() : Integer.MAX_VALUE);
+        List<ProductListItemDTO> content = productListingService.findByIds(ids);
+        return PageableExecutionUtils.getPage(content, page, () -> productRepository.count(specification));
+    }
+
+    /**
+     * Return a {@link Slice} of {@link ProductListItemDTO} which matches the criteria from the database, without
+     * counting the matching entities.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductListItemDTO> findListingSliceByCriteria(ProductCriteria criteria, Pageable page) {
+        LOG.debug("find listing slice by criteria : {}, page: {}", criteria, page);
+        final Specification<Product> specification = createSpecification(criteria);
+        List<Long> ids = productRepository.findIds(specification, page, page.getPageSize() + 1);
+        boolean hasNext = ids.size() > page.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, page.getPageSize());
+        }
+        return new SliceImpl<>(productListingService.findByIds(ids), page, hasNext);
+    }
+
+    /**
+     * Return a keyset page of {@link ProductDTO} which matches the criteria from the database, ordered by id.
+     * No count query is run, so the cost of a page does not depend on its position.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId The id of the last entity of the previous page, or {@code null} for the first page.
+     * @param size The size of the page.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDTO> findByCriteriaAfter(ProductCriteria criteria, Long afterId, int size) {
+        LOG.debug("find by criteria : {}, after: {}, size: {}", criteria, afterId, size);
+        Specification<Product> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and((root, query, builder) -> builder.greaterThan(root.get(Product_.id), afterId));
+        }
+        List<Product> products = productRepository.findBy(specification, q -> q.sortBy(Sort.by(Product_.ID)).limit(size).all());
+        return productRepository.fetchBagRelationships(products).stream().map(productMapper::toDto).toList();
     }
 
     /**
@@ -88,12 +184,40 @@ public class ProductQueryService extends QueryService<Product> {
             if (criteria.getImageUrl() != null) {
                 specification = specification.and(buildStringSpecification(criteria.getImageUrl(), Product_.imageUrl));
             }
+            if (criteria.getAverageRating() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getAverageRating(), Product_.averageRating));
+            }
             if (criteria.getCategoriesId() != null) {
                 specification = specification.and(
                     buildSpecification(criteria.getCategoriesId(), root -> root.join(Product_.categories, JoinType.LEFT).get(Category_.id))
                 );
             }
+            if (criteria.getCategorySubtreeId() != null) {
+                specification = specification.and(buildCategorySubtreeSpecification(criteria.getCategorySubtreeId()));
+            }
         }
         return specification;
     }
+
+    /**
+     * Match the products with a category in the subtree of one of the filtered categories, as a single exists
+     * subquery joining the categories of the product to the category closure, so the rows are not multiplied.
+     */
+    private Specification<Product> buildCategorySubtreeSpecification(LongFilter filter) {
+        return (root, query, builder) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<CategoryClosure> closure = subquery.from(CategoryClosure.class);
+            Join<Product, Category> category = subquery.correlate(root).join(Product_.categories);
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(builder.equal(closure.get(CategoryClosure_.descendantId), category.get(Category_.id)));
+            if (filter.getEquals() != null) {
+                predicates.add(builder.equal(closure.get(CategoryClosure_.ancestorId), filter.getEquals()));
+            }
+            if (filter.getIn() != null) {
+                predicates.add(closure.get(CategoryClosure_.ancestorId).in(filter.getIn()));
+            }
+            subquery.select(closure.get(CategoryClosure_.ancestorId)).where(predicates.toArray(new Predicate[0]));
+            return builder.exists(subquery);
+        };
+    }
 }
@@ -0,0 +1,482 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.config.ApplicationProperties;
+import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.domain.enumeration.OrderStatus;
+import com.quattrinh.shop.repository.OrderItemRepository;
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.service.dto.ProductDTO;
+import com.quattrinh.shop.service.mapper.ProductMapper;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service ranking the products of the home page sections from their sales.
+ * <p>
+ * It keeps per product the units sold and the revenue of completed orders, and a trend score where each sale counts
+ * half as much every {@code application.catalog.trend-half-life-hours}. Sales are added when orders complete, and the
+ * scores are rebuilt from the database every hour. The top {@value #TOP_K} products of each section, and their DTOs,
+ * are kept in memory, so reading a section does not hit the database. Only the hourly rebuild ranks all the products;
+ * a sale or a product change re-positions the products concerned in a bounded ranking per section.
+ */
+@Service
+public class ProductRankingService {
+
+    public static final int TOP_K = 50;
+
+    /** Products kept by the ranking of a section, more than shown so that deactivations rarely require a full rank. */
+    private static final int RANKING_CAPACITY = 2 * TOP_K;
+
+    /**
+     * A home page section.
+     */
+    public enum Section {
+        /** Highest revenue. */
+        FEATURED,
+        /** Newest products. */
+        NEW,
+        /** Highest decayed units sold. */
+        TREND,
+        /** Highest units sold. */
+        BEST_SELLER,
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductRankingService.class);
+
+    private static final Duration REBUILD_INTERVAL = Duration.ofHours(1);
+
+    /** Sales older than this many half-lives are ignored by the trend score. */
+    private static final int TREND_WINDOW_HALF_LIVES = 10;
+
+    private final ProductRepository productRepository;
+
+    private final OrderItemRepository orderItemRepository;
+
+    private final ProductMapper productMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object lock = new Object();
+
+    /**
+     * Updates applied while a rebuild is running, replayed on the rebuilt scores. Sales committed while the rebuild
+     * reads them may be counted twice, until the next rebuild.
+     */
+    private final List<Consumer<Scores>> pendingUpdates = new ArrayList<>();
+
+    private Scores scores;
+
+    private boolean rebuilding;
+
+    private Instant rebuiltAt;
+
+    private volatile Map<Section, List<Long>> rankings;
+
+    private volatile Map<Long, ProductDTO> products = Map.of();
+
+    /**
+     * Bumped by each eviction of a cached DTO, so that DTOs loaded before an eviction are not cached after it.
+     */
+    private long productsGeneration;
+
+    public ProductRankingService(
+        ProductRepository productRepository,
+        OrderItemRepository orderItemRepository,
+        ProductMapper productMapper,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productMapper = productMapper;
+        this.applicationProperties = applicationProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Get the top products of a home page section. Sections with fewer ranked products than requested are completed
+     * with the newest products.
+     *
+     * @param section the section.
+     * @param limit the number of products, at most {@value #TOP_K}.
+     * @return the products, best ranked first.
+     */
+    public List<ProductDTO> findTop(Section section, int limit) {
+        if (rankings == null) {
+            transactionTemplate.executeWithoutResult(status -> rebuild());
+        }
+        Map<Section, List<Long>> current = rankings;
+        if (current == null) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : current.get(section)) {
+            if (ids.size() < limit) {
+                ids.add(id);
+            }
+        }
+        for (Long id : current.get(Section.NEW)) {
+            if (ids.size() < limit) {
+                ids.add(id);
+            }
+        }
+        Map<Long, ProductDTO> cached = products;
+        List<Long> missing = ids.stream().filter(id -> !cached.containsKey(id)).toList();
+        Map<Long, ProductDTO> found = missing.isEmpty() ? cached : transactionTemplate.execute(status -> cacheProducts(missing));
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Add the sales of orders which just became completed, once the transaction commits.
+     *
+     * @param orderIds the ids of the orders.
+     */
+    public void recordCompletedOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> sales = orderItemRepository.sumSalesByOrderIdsGroupByProductId(orderIds);
+        Instant completedAt = Instant.now();
+        Consumer<Scores> update = target -> {
+            for (Object[] row : sales) {
+                target.addSale((Long) row[0], ((Number) row[1]).longValue(), (BigDecimal) row[2], completedAt);
+            }
+        };
+        TransactionHooks.afterCommit(() -> apply(update));
+    }
+
+    /**
+     * Take a product change into account: its activation once the current transaction commits, and the content of
+     * its cached DTO.
+     *
+     * @param product the saved product.
+     */
+    public void productChanged(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+        Long id = product.getId();
+        boolean active = !Boolean.FALSE.equals(product.getIsActive());
+        evict(id);
+        TransactionHooks.afterCommit(() -> apply(target -> target.setActive(id, active)));
+    }
+
+    /**
+     * Evict the cached DTO of a product, for instance after a change of its variants.
+     *
+     * @param productId the id of the product.
+     */
+    public void evict(Long productId) {
+        // Again once the change is visible; a read that loaded the previous state meanwhile does not cache it, as the
+        // generation of the DTOs changed while it was loading
+        TransactionHooks.nowAndAfterCommit(() -> evictNow(productId));
+    }
+
+    private void evictNow(Long productId) {
+        synchronized (lock) {
+            productsGeneration++;
+            if (products.containsKey(productId)) {
+                Map<Long, ProductDTO> copy = new HashMap<>(products);
+                copy.remove(productId);
+                products = copy;
+            }
+        }
+    }
+
+    /**
+     * Rebuild the scores from the database every hour, retrying every minute until it succeeds, and refresh the cached
+     * DTOs of the ranked products in between.
+     */
+    @Scheduled(initialDelay = 0, fixedDelay = 60000)
+    @Transactional(readOnly = true)
+    public void refresh() {
+        Instant lastRebuild;
+        synchronized (lock) {
+            lastRebuild = rebuiltAt;
+        }
+        try {
+            if (lastRebuild == null || lastRebuild.plus(REBUILD_INTERVAL).isBefore(Instant.now())) {
+                rebuild();
+            } else {
+                reloadProducts();
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not refresh the product rankings: {}", e.getMessage());
+        }
+    }
+
+    private void rebuild() {
+        synchronized (lock) {
+            rebuilding = true;
+            pendingUpdates.clear();
+        }
+        Scores rebuilt = null;
+        try {
+            rebuilt = load();
+        } finally {
+            synchronized (lock) {
+                if (rebuilt != null) {
+                    for (Consumer<Scores> update : pendingUpdates) {
+                        update.accept(rebuilt);
+                    }
+                    rebuilt.rankAll();
+                    scores = rebuilt;
+                    rebuiltAt = Instant.now();
+                    rankings = rebuilt.rankings();
+                    LOG.debug("Product rankings rebuilt with {} active products", rebuilt.activeProductIds.size());
+                }
+                rebuilding = false;
+                pendingUpdates.clear();
+            }
+        }
+        reloadProducts();
+    }
+
+    private Scores load() {
+        Instant now = Instant.now();
+        Scores loaded = new Scores(now, Duration.ofHours(Math.max(1, applicationProperties.getCatalog().getTrendHalfLifeHours())));
+        loaded.activeProductIds.addAll(productRepository.findAllActiveIds());
+        for (Object[] row : orderItemRepository.sumSalesGroupByProductId(OrderStatus.COMPLETED)) {
+            loaded.unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+            loaded.revenue.put((Long) row[0], (BigDecimal) row[2]);
+        }
+        Instant since = now.minus(loaded.halfLife.multipliedBy(TREND_WINDOW_HALF_LIVES));
+        for (Object[] row : orderItemRepository.findSalesUpdatedSince(OrderStatus.COMPLETED, since)) {
+            loaded.addTrend((Long) row[0], ((Number) row[2]).longValue(), (Instant) row[1]);
+        }
+        return loaded;
+    }
+
+    private void apply(Consumer<Scores> update) {
+        synchronized (lock) {
+            if (scores != null) {
+                update.accept(scores);
+                rankings = scores.rankings();
+            }
+            if (rebuilding) {
+                pendingUpdates.add(update);
+            }
+        }
+    }
+
+    /**
+     * Replace the cached DTOs by fresh ones for all the ranked products.
+     */
+    private void reloadProducts() {
+        Map<Section, List<Long>> current = rankings;
+        if (current == null) {
+            return;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        current.values().forEach(ids::addAll);
+        long generation;
+        synchronized (lock) {
+            generation = productsGeneration;
+        }
+        Map<Long, ProductDTO> loaded = new HashMap<>();
+        for (Product product : productRepository.findAllWithBagRelationshipsByIdIn(List.copyOf(ids))) {
+            loaded.put(product.getId(), productMapper.toDto(product));
+        }
+        synchronized (lock) {
+            if (productsGeneration == generation) {
+                products = loaded;
+            }
+        }
+    }
+
+    /**
+     * Load the DTOs of products, and cache them unless a DTO was evicted while they were loading.
+     *
+     * @return the cached DTOs with the loaded ones.
+     */
+    private Map<Long, ProductDTO> cacheProducts(List<Long> ids) {
+        long generation;
+        synchronized (lock) {
+            generation = productsGeneration;
+        }
+        List<ProductDTO> loaded = productRepository.findAllWithBagRelationshipsByIdIn(ids).stream().map(productMapper::toDto).toList();
+        synchronized (lock) {
+            Map<Long, ProductDTO> copy = new HashMap<>(products);
+            loaded.forEach(product -> copy.put(product.getId(), product));
+            if (productsGeneration == generation) {
+                products = copy;
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * The scores of the products. Trend scores are kept relative to the epoch, a sale at {@code t} counting
+     * {@code 2^((t - epoch) / halfLife)} per unit, so that older scores never have to be decayed; the epoch is reset by
+     * each rebuild.
+     * <p>
+     * Once {@link #rankAll()} is called, each change re-positions the product in the bounded ranking of each section.
+     */
+    private static final class Scores {
+
+        private final Instant epoch;
+
+        private final Duration halfLife;
+
+        private final NavigableSet<Long> activeProductIds = new TreeSet<>();
+
+        private final Map<Long, Long> unitsSold = new HashMap<>();
+
+        private final Map<Long, BigDecimal> revenue = new HashMap<>();
+
+        private final Map<Long, Double> trend = new HashMap<>();
+
+        /** The ranking of each section by score, {@code null} until {@link #rankAll()}. */
+        private Map<Section, Ranking<?>> rankingsBySection;
+
+        Scores(Instant epoch, Duration halfLife) {
+            this.epoch = epoch;
+            this.halfLife = halfLife;
+        }
+
+        void addSale(Long productId, long quantity, BigDecimal amount, Instant at) {
+            unitsSold.merge(productId, quantity, Long::sum);
+            revenue.merge(productId, amount != null ? amount : BigDecimal.ZERO, BigDecimal::add);
+            addTrend(productId, quantity, at);
+            reposition(productId);
+        }
+
+        void addTrend(Long productId, long quantity, Instant at) {
+            double halfLives = (double) Duration.between(epoch, at).toSeconds() / halfLife.toSeconds();
+            trend.merge(productId, quantity * Math.pow(2, halfLives), Double::sum);
+        }
+
+        void setActive(Long productId, boolean active) {
+            if (active) {
+                activeProductIds.add(productId);
+            } else {
+                activeProductIds.remove(productId);
+            }
+            reposition(productId);
+        }
+
+        /**
+         * Rank all the active products, then keep the rankings up to date with each change.
+         */
+        void rankAll() {
+            rankingsBySection = new EnumMap<>(Section.class);
+            rankingsBySection.put(Section.FEATURED, new Ranking<>(revenue));
+            rankingsBySection.put(Section.TREND, new Ranking<>(trend));
+            rankingsBySection.put(Section.BEST_SELLER, new Ranking<>(unitsSold));
+            rankingsBySection.values().forEach(ranking -> ranking.rankAll(activeProductIds));
+        }
+
+        /**
+         * @return the top products of each section.
+         */
+        Map<Section, List<Long>> rankings() {
+            Map<Section, List<Long>> ranked = new EnumMap<>(Section.class);
+            rankingsBySection.forEach((section, ranking) -> ranked.put(section, ranking.top()));
+            ranked.put(Section.NEW, activeProductIds.descendingSet().stream().limit(TOP_K).toList());
+            return ranked;
+        }
+
+        private void reposition(Long productId) {
+            if (rankingsBySection != null) {
+                rankingsBySection.values().forEach(ranking -> ranking.reposition(productId, activeProductIds));
+            }
+        }
+    }
+
+    /**
+     * The best active products by a score, best first, keeping up to {@value #RANKING_CAPACITY} of them.
+     * <p>
+     * Scores only grow, so a product left out can only get in when its own score changes, when it is re-positioned.
+     * Products removed on deactivation leave room for the ones left out, which requires ranking all the products again
+     * once fewer than {@value #TOP_K} remain.
+     */
+    private static final class Ranking<V extends Comparable<V>> {
+
+        private final Map<Long, V> scores;
+
+        private final NavigableSet<Ranked<V>> ranked = new TreeSet<>();
+
+        private final Map<Long, Ranked<V>> rankedById = new HashMap<>();
+
+        /** Whether products with a score were left out since the last full ranking. */
+        private boolean truncated;
+
+        Ranking(Map<Long, V> scores) {
+            this.scores = scores;
+        }
+
+        void rankAll(Set<Long> activeProductIds) {
+            ranked.clear();
+            rankedById.clear();
+            truncated = false;
+            scores.forEach((productId, score) -> {
+                if (activeProductIds.contains(productId)) {
+                    add(productId, score);
+                }
+            });
+        }
+
+        void reposition(Long productId, Set<Long> activeProductIds) {
+            // The entry holds the score it was sorted with, so it is found even though the score changed since
+            Ranked<V> previous = rankedById.remove(productId);
+            if (previous != null) {
+                ranked.remove(previous);
+            }
+            V score = scores.get(productId);
+            if (score != null && activeProductIds.contains(productId)) {
+                add(productId, score);
+            }
+            if (truncated && ranked.size() < TOP_K) {
+                rankAll(activeProductIds);
+            }
+        }
+
+        List<Long> top() {
+            return ranked.stream().limit(TOP_K).map(Ranked::productId).toList();
+        }
+
+        private void add(Long productId, V score) {
+            Ranked<V> entry = new Ranked<>(productId, score);
+            ranked.add(entry);
+            rankedById.put(productId, entry);
+            if (ranked.size() > RANKING_CAPACITY) {
+                rankedById.remove(ranked.pollLast().productId());
+                truncated = true;
+            }
+        }
+    }
+
+    /**
+     * A product with its score, ordered by descending score then ascending id.
+     */
+    private record Ranked<V extends Comparable<V>>(Long productId, V score) implements Comparable<Ranked<V>> {
+        @Override
+        public int compareTo(Ranked<V> other) {
+            int byScore = other.score.compareTo(score);
+            return byScore != 0 ? byScore : productId.compareTo(other.productId);
+        }
+    }
+}
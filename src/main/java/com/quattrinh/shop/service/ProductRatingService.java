@@ -0,0 +1,139 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.repository.ProductReviewRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service maintaining the rating aggregates of each product: the number and the sum of the ratings of its reviews,
+ * their average and the number of reviews for each rating.
+ * <p>
+ * The aggregates are changed by {@link ProductReviewService} in the transaction writing a review, and rebuilt from the
+ * reviews every night to correct any drift, such as reviews written directly in the database.
+ */
+@Service
+public class ProductRatingService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductRatingService.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+
+    private final ProductReviewRepository productReviewRepository;
+
+    private final ProductDetailService productDetailService;
+
+    private final ProductRankingService productRankingService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductRatingService(
+        ProductRepository productRepository,
+        ProductReviewRepository productReviewRepository,
+        ProductDetailService productDetailService,
+        ProductRankingService productRankingService,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.productRepository = productRepository;
+        this.productReviewRepository = productReviewRepository;
+        this.productDetailService = productDetailService;
+        this.productRankingService = productRankingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Count the change of a review in the aggregates of its products.
+     *
+     * @param previousProductId the id of the previous product of the review, {@code null} for a new review.
+     * @param previousRating the previous rating, {@code null} for a new review.
+     * @param productId the id of the product of the review, {@code null} for a deleted review.
+     * @param rating the rating, {@code null} for a deleted review.
+     */
+    @Transactional
+    public void reviewChanged(Long previousProductId, Integer previousRating, Long productId, Integer rating) {
+        if (Objects.equals(previousProductId, productId) && Objects.equals(previousRating, rating)) {
+            return;
+        }
+        if (previousProductId != null && previousRating != null) {
+            productRepository.addRating(previousProductId, previousRating, -1);
+            evict(previousProductId);
+        }
+        if (productId != null && rating != null) {
+            productRepository.addRating(productId, rating, 1);
+            evict(productId);
+        }
+    }
+
+    /**
+     * Rebuild the aggregates of all products from their reviews, one batch of products per transaction. The products
+     * of a batch are locked while their reviews are read, so that no concurrent review change is lost or counted twice.
+     */
+    @Scheduled(cron = "0 30 2 * * ?")
+    public void rebuild() {
+        List<Long> ids = productRepository.findAllIds();
+        int rebuilt = 0;
+        for (int from = 0; from < ids.size(); from += REBUILD_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + REBUILD_BATCH_SIZE, ids.size()));
+            rebuilt += transactionTemplate.execute(status -> rebuild(batch));
+        }
+        LOG.info("Rebuilt the rating aggregates of {} of {} products", rebuilt, ids.size());
+    }
+
+    private int rebuild(List<Long> productIds) {
+        List<Product> products = productRepository.findAllByIdInForUpdate(productIds);
+        Map<Long, Object[]> aggregates = new HashMap<>();
+        productReviewRepository.aggregateRatingsByProductIdIn(productIds).forEach(row -> aggregates.put((Long) row[0], row));
+
+        int rebuilt = 0;
+        for (Product product : products) {
+            Object[] row = aggregates.get(product.getId());
+            int[] counts = new int[5];
+            long sum = 0;
+            if (row != null) {
+                sum = ((Number) row[2]).longValue();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = ((Number) row[3 + i]).intValue();
+                }
+            }
+            int count = counts[0] + counts[1] + counts[2] + counts[3] + counts[4];
+            BigDecimal average = count == 0
+                ? BigDecimal.ZERO
+                : BigDecimal.valueOf(sum).divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+            if (
+                count != product.getRatingCount() ||
+                sum != product.getRatingSum() ||
+                average.compareTo(product.getAverageRating()) != 0 ||
+                counts[0] != product.getRating1Count() ||
+                counts[1] != product.getRating2Count() ||
+                counts[2] != product.getRating3Count() ||
+                counts[3] != product.getRating4Count() ||
+                counts[4] != product.getRating5Count()
+            ) {
+                LOG.info("Rebuilt the rating aggregates of product {}: {} ratings, average {}", product.getId(), count, average);
+                productRepository.setRatings(product.getId(), count, sum, average, counts[0], counts[1], counts[2], counts[3], counts[4]);
+                evict(product.getId());
+                rebuilt++;
+            }
+        }
+        return rebuilt;
+    }
+
+    private void evict(Long productId) {
+        productDetailService.evict(productId);
+        productRankingService.evict(productId);
+    }
+}
@@ -4,30 +4,59 @@ import com.quattrinh.shop.domain.ProductReview;
 import com.quattrinh.shop.repository.ProductReviewRepository;
 import com.quattrinh.shop.service.dto.ProductReviewDTO;
 import com.quattrinh.shop.service.mapper.ProductReviewMapper;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service Implementation for managing {@link com.quattrinh.shop.domain.ProductReview}.
+ * <p>
+ * The newest reviews of a product, read by nearly every visit of its page, are kept in a cache evicted on each write of
+ * a review of the product.
  */
 @Service
 @Transactional
 public class ProductReviewService {
 
+    public static final String PRODUCT_REVIEWS_CACHE = "productReviewsFirstPage";
+
+    /**
+     * The number of newest reviews of a product kept in the cache, the largest first page served from it.
+     */
+    public static final int CACHED_PAGE_SIZE = 20;
+
     private static final Logger LOG = LoggerFactory.getLogger(ProductReviewService.class);
 
     private final ProductReviewRepository productReviewRepository;
 
     private final ProductReviewMapper productReviewMapper;
 
-    public ProductReviewService(ProductReviewRepository productReviewRepository, ProductReviewMapper productReviewMapper) {
+    private final CatalogStatisticsService catalogStatisticsService;
+
+    private final ProductRatingService productRatingService;
+
+    private final GuardedCache firstPageCache;
+
+    public ProductReviewService(
+        ProductReviewRepository productReviewRepository,
+        ProductReviewMapper productReviewMapper,
+        CatalogStatisticsService catalogStatisticsService,
+        ProductRatingService productRatingService,
+        CacheManager cacheManager
+    ) {
         this.productReviewRepository = productReviewRepository;
         this.productReviewMapper = productReviewMapper;
+        this.catalogStatisticsService = catalogStatisticsService;
+        this.productRatingService = productRatingService;
+        this.firstPageCache = new GuardedCache(cacheManager, PRODUCT_REVIEWS_CACHE);
     }
 
     /**
@@ -40,6 +69,7 @@ public class ProductReviewService {
         LOG.debug("Request to save ProductReview : {}", productReviewDTO);
         ProductReview productReview = productReviewMapper.toEntity(productReviewDTO);
         productReview = productReviewRepository.save(productReview);
+        reviewChanged(null, null, productReview);
         return productReviewMapper.toDto(productReview);
     }
 
@@ -51,8 +81,12 @@ public class ProductReviewService {
      */
     public ProductReviewDTO update(ProductReviewDTO productReviewDTO) {
         LOG.debug("Request to update ProductReview : {}", productReviewDTO);
+        Optional<ProductReview> previous = productReviewRepository.findById(productReviewDTO.getId());
+        Long previousProductId = previous.map(ProductReviewService::productId).orElse(null);
+        Integer previousRating = previous.map(ProductReview::getRating).orElse(null);
         ProductReview productReview = productReviewMapper.toEntity(productReviewDTO);
         productReview = productReviewRepository.save(productReview);
+        reviewChanged(previousProductId, previousRating, productReview);
         return productReviewMapper.toDto(productReview);
     }
 
@@ -68,7 +102,10 @@ public class ProductReviewService {
         return productReviewRepository
             .findById(productReviewDTO.getId())
             .map(existingProductReview -> {
+                Long previousProductId = productId(existingProductReview);
+                Integer previousRating = existingProductReview.getRating();
                 productReviewMapper.partialUpdate(existingProductReview, productReviewDTO);
+                reviewChanged(previousProductId, previousRating, existingProductReview);
 
                 return existingProductReview;
             })
@@ -85,6 +122,38 @@ public class ProductReviewService {
         return productReviewRepository.findAllWithEagerRelationships(pageable).map(productReviewMapper::toDto);
     }
 
+    /**
+     * Get the reviews of a product, newest first, by keyset pages. A first page of at most {@link #CACHED_PAGE_SIZE}
+     * reviews is served from the cache.
+     *
+     * @param productId the id of the product.
+     * @param beforeId the id of the last review of the previous page, or {@code null} for the first page.
+     * @param size the size of the page.
+     * @return the reviews.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductReviewDTO> findByProduct(Long productId, Long beforeId, int size) {
+        LOG.debug("Request to get ProductReviews of Product : {}, before: {}, size: {}", productId, beforeId, size);
+        if (beforeId != null) {
+            return productReviewRepository
+                .findNewestByProductIdBefore(productId, beforeId, PageRequest.ofSize(size))
+                .stream()
+                .map(productReviewMapper::toDto)
+                .toList();
+        }
+        if (size > CACHED_PAGE_SIZE) {
+            return findNewest(productId, size);
+        }
+        @SuppressWarnings("unchecked")
+        List<ProductReviewDTO> firstPage = firstPageCache.get(productId, List.class);
+        if (firstPage == null) {
+            long generation = firstPageCache.generation(productId);
+            firstPage = findNewest(productId, CACHED_PAGE_SIZE);
+            firstPageCache.put(productId, firstPage, generation);
+        }
+        return firstPage.subList(0, Math.min(size, firstPage.size()));
+    }
+
     /**
      * Get one productReview by id.
      *
@@ -104,6 +173,48 @@ public class ProductReviewService {
      */
     public void delete(Long id) {
         LOG.debug("Request to delete ProductReview : {}", id);
-        productReviewRepository.deleteById(id);
+        productReviewRepository
+            .findById(id)
+            .ifPresent(productReview -> {
+                productReviewRepository.delete(productReview);
+                reviewChanged(productId(productReview), productReview.getRating(), null);
+            });
+    }
+
+    /**
+     * Count the change of a review in the rating aggregates of the catalog and of its products, and evict the newest
+     * reviews of its products, now and again once the current transaction commits. A first page loaded from the
+     * previous state meanwhile is not put back, see {@link GuardedCache}.
+     *
+     * @param previousProductId the id of the previous product of the review, {@code null} for a new review.
+     * @param previousRating the previous rating, {@code null} for a new review.
+     * @param productReview the review, {@code null} once deleted.
+     */
+    private void reviewChanged(Long previousProductId, Integer previousRating, ProductReview productReview) {
+        Integer rating = productReview != null ? productReview.getRating() : null;
+        catalogStatisticsService.reviewRatingChanged(previousRating, rating);
+        Long productId = productId(productReview);
+        productRatingService.reviewChanged(previousProductId, previousRating, productId, rating);
+
+        List<Long> productIds = new ArrayList<>(2);
+        if (previousProductId != null) {
+            productIds.add(previousProductId);
+        }
+        if (productId != null && !productId.equals(previousProductId)) {
+            productIds.add(productId);
+        }
+        TransactionHooks.nowAndAfterCommit(() -> productIds.forEach(firstPageCache::evict));
+    }
+
+    private List<ProductReviewDTO> findNewest(Long productId, int size) {
+        return productReviewRepository
+            .findNewestByProductId(productId, PageRequest.ofSize(size))
+            .stream()
+            .map(productReviewMapper::toDto)
+            .toList();
+    }
+
+    private static Long productId(ProductReview productReview) {
+        return productReview != null && productReview.getProduct() != null ? productReview.getProduct().getId() : null;
     }
 }
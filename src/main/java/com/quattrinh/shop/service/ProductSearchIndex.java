@@ -0,0 +1,350 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.repository.ProductRepository;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * In-memory inverted index over the name and description of active products.
+ * <p>
+ * Texts are normalized (case and accents folded) and split into tokens; each token has a posting list of the
+ * products containing it with a weight, higher for the name than for the description. Query terms are matched as
+ * substrings of the indexed tokens, as {@code like '%term%'} did, through a trigram index over the vocabulary, and
+ * every term must match. Products are ranked by the sum of their weights, exact and prefix token matches counting
+ * more than infix ones.
+ * <p>
+ * The index is built by a scheduled task once the database is available, kept up to date by {@link ProductService} once
+ * its changes are committed, and rebuilt every hour; callers must fall back to the database while {@link #isReady()}
+ * is false.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int GRAM_SIZE = 3;
+
+    private static final int NAME_WEIGHT = 3;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int EXACT_MATCH = 3;
+
+    private static final int PREFIX_MATCH = 2;
+
+    private static final int INFIX_MATCH = 1;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Updates applied while a rebuild is running, replayed on the rebuilt index. */
+    private final List<Consumer<Index>> pendingUpdates = new ArrayList<>();
+
+    private Index index = new Index();
+
+    private boolean rebuilding;
+
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * @return whether the index has been built and can answer searches.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Build the index from the active products, retrying every minute until it succeeds, since the schema may still
+     * be migrated asynchronously at startup.
+     */
+    @Scheduled(initialDelay = 0, fixedDelay = 60000)
+    @Transactional(readOnly = true)
+    public void buildIfNotReady() {
+        if (!ready) {
+            build();
+        }
+    }
+
+    /**
+     * Rebuild the index every hour, so that a change committed without going through {@link ProductService}, or
+     * whose update was lost, does not stay out of the index until the next restart.
+     */
+    @Scheduled(initialDelay = 3600000, fixedDelay = 3600000)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (ready) {
+            build();
+        }
+    }
+
+    /**
+     * The products are read and indexed without holding the lock, so that searches are answered from the previous
+     * index meanwhile; the changes committed during the rebuild are recorded and replayed on the new index before it
+     * replaces the previous one.
+     */
+    private void build() {
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+            pendingUpdates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Index rebuilt;
+        try {
+            rebuilt = new Index();
+            for (Object[] row : productRepository.findAllActiveIdNameAndDescription()) {
+                rebuilt.add((Long) row[0], (String) row[1], (String) row[2]);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not build the product search index, keeping the previous state: {}", e.getMessage());
+            rebuilt = null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilt != null) {
+                for (Consumer<Index> update : pendingUpdates) {
+                    update.accept(rebuilt);
+                }
+                index = rebuilt;
+                ready = true;
+                LOG.info(
+                    "Product search index built with {} products and {} tokens",
+                    rebuilt.tokensByProduct.size(),
+                    rebuilt.postings.size()
+                );
+            }
+            rebuilding = false;
+            pendingUpdates.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a product, or remove it if it is not active.
+     *
+     * @param product the saved product.
+     */
+    public void index(Product product) {
+        Long productId = product.getId();
+        if (productId == null) {
+            return;
+        }
+        if (Boolean.FALSE.equals(product.getIsActive())) {
+            apply(target -> target.remove(productId));
+        } else {
+            String name = product.getName();
+            String description = product.getDescription();
+            apply(target -> {
+                target.remove(productId);
+                target.add(productId, name, description);
+            });
+        }
+    }
+
+    /**
+     * Remove a product from the index.
+     *
+     * @param productId the id of the product.
+     */
+    public void remove(Long productId) {
+        apply(target -> target.remove(productId));
+    }
+
+    private void apply(Consumer<Index> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(index);
+            if (rebuilding) {
+                pendingUpdates.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search the active products.
+     *
+     * @param query the search text.
+     * @return the ids of the products matching every term of the query, best ranked first.
+     */
+    public List<Long> search(String query) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = index.scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Integer> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : termScores.entrySet()) {
+                        Integer score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+            return ranked.stream().map(Map.Entry::getKey).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Fold the case and accents of a text and split it into tokens.
+     *
+     * @param text the text, may be {@code null}.
+     * @return the tokens.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // The Vietnamese d with stroke has no decomposition
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+            .replaceAll("")
+            .replace('\u0111', 'd');
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalized)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> grams(String token) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * The maps of the index, replaced as a whole by a rebuild; guarded by the lock of the enclosing index.
+     */
+    private static final class Index {
+
+        /** Posting lists: token to the weight of the token for each product containing it. */
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+        /** Trigram to the tokens of the vocabulary containing it. */
+        private final Map<String, Set<String>> tokensByGram = new HashMap<>();
+
+        /** Tokens of each indexed product, to remove it from the posting lists. */
+        private final Map<Long, Set<String>> tokensByProduct = new HashMap<>();
+
+        Map<Long, Integer> scoreTerm(String term) {
+            Map<Long, Integer> scores = new HashMap<>();
+            for (String token : matchingTokens(term)) {
+                int match = token.equals(term) ? EXACT_MATCH : token.startsWith(term) ? PREFIX_MATCH : INFIX_MATCH;
+                postings.get(token).forEach((productId, weight) -> scores.merge(productId, weight * match, Math::max));
+            }
+            return scores;
+        }
+
+        /**
+         * Find the tokens of the vocabulary containing the term, intersecting the token sets of its trigrams.
+         */
+        private Set<String> matchingTokens(String term) {
+            Set<String> candidates;
+            if (term.length() < GRAM_SIZE) {
+                candidates = postings.keySet();
+            } else {
+                candidates = null;
+                for (String gram : grams(term)) {
+                    Set<String> tokens = tokensByGram.getOrDefault(gram, Set.of());
+                    if (candidates == null || tokens.size() < candidates.size()) {
+                        candidates = tokens;
+                    }
+                }
+            }
+            Set<String> matches = new HashSet<>();
+            for (String token : candidates) {
+                if (token.contains(term)) {
+                    matches.add(token);
+                }
+            }
+            return matches;
+        }
+
+        void add(Long productId, String name, String description) {
+            Map<String, Integer> weights = new HashMap<>();
+            tokenize(name).forEach(token -> weights.merge(token, NAME_WEIGHT, Math::max));
+            tokenize(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Math::max));
+            weights.forEach((token, weight) -> {
+                Map<Long, Integer> postingList = postings.computeIfAbsent(token, key -> new HashMap<>());
+                if (postingList.isEmpty()) {
+                    grams(token).forEach(gram -> tokensByGram.computeIfAbsent(gram, key -> new HashSet<>()).add(token));
+                }
+                postingList.put(productId, weight);
+            });
+            tokensByProduct.put(productId, weights.keySet());
+        }
+
+        void remove(Long productId) {
+            Set<String> tokens = tokensByProduct.remove(productId);
+            if (tokens == null) {
+                return;
+            }
+            for (String token : tokens) {
+                Map<Long, Integer> postingList = postings.get(token);
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(token);
+                    for (String gram : grams(token)) {
+                        Set<String> gramTokens = tokensByGram.get(gram);
+                        gramTokens.remove(token);
+                        if (gramTokens.isEmpty()) {
+                            tokensByGram.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
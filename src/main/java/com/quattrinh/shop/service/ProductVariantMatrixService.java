@@ -0,0 +1,280 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.repository.ProductVariantRepository;
+import com.quattrinh.shop.repository.ProductVariantRepository.StockLevel;
+import com.quattrinh.shop.service.dto.VariantResolutionDTO;
+import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service resolving a selection of attribute values of a product to its variant, so that clients do not need the
+ * full list of variants to drive the attribute pickers of the product page.
+ * <p>
+ * The active variants of a product are indexed once into a {@link VariantMatrix} kept in a bounded {@link GuardedCache},
+ * evicted with the product detail by {@link ProductDetailService}; only the stock levels are read again on each
+ * request.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductVariantMatrixService {
+
+    public static final String VARIANT_MATRIX_CACHE = "productVariantMatrix";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductVariantMatrixService.class);
+
+    private static final String ENTITY_NAME = "productVariant";
+
+    private final ProductRepository productRepository;
+
+    private final ProductVariantRepository productVariantRepository;
+
+    private final GuardedCache matrixCache;
+
+    public ProductVariantMatrixService(
+        ProductRepository productRepository,
+        ProductVariantRepository productVariantRepository,
+        CacheManager cacheManager
+    ) {
+        this.productRepository = productRepository;
+        this.productVariantRepository = productVariantRepository;
+        this.matrixCache = new GuardedCache(cacheManager, VARIANT_MATRIX_CACHE);
+    }
+
+    /**
+     * Resolve a selection of attribute values of a product.
+     *
+     * @param productId the id of the product.
+     * @param valueIds the ids of the selected attribute values, at most one per attribute; may be empty.
+     * @return the variant of the selection if it is complete, and the values still selectable with it, or empty if the
+     * product does not exist.
+     * @throws BadRequestAlertException if a value is not one of the active variants of the product, or if two values
+     * of the same attribute are selected.
+     */
+    public Optional<VariantResolutionDTO> resolve(Long productId, Collection<Long> valueIds) {
+        LOG.debug("Request to resolve ProductVariant of Product {} : {}", productId, valueIds);
+        VariantMatrix matrix = getMatrix(productId);
+        if (matrix == null) {
+            return Optional.empty();
+        }
+
+        // The selected value of each attribute, 0 when the attribute is not selected yet
+        long[] selection = new long[matrix.attributeIds.length];
+        for (Long valueId : valueIds) {
+            if (valueId == null) {
+                continue;
+            }
+            Integer attribute = matrix.attributeByValueId.get(valueId);
+            if (attribute == null) {
+                throw new BadRequestAlertException("Unknown attribute value " + valueId, ENTITY_NAME, "unknownattributevalue");
+            }
+            if (selection[attribute] != 0 && selection[attribute] != valueId) {
+                throw new BadRequestAlertException("Several values of the same attribute", ENTITY_NAME, "severalattributevalues");
+            }
+            selection[attribute] = valueId;
+        }
+
+        Map<Long, Integer> availableById = new HashMap<>();
+        for (StockLevel stockLevel : productVariantRepository.findStockLevelsByProductId(productId)) {
+            int stock = stockLevel.getStock() != null ? stockLevel.getStock() : 0;
+            int reserved = stockLevel.getReserved() != null ? stockLevel.getReserved() : 0;
+            availableById.put(stockLevel.getId(), Math.max(0, stock - reserved));
+        }
+
+        // A variant differing from the selection on one attribute makes its value of that attribute selectable, and a
+        // variant matching the whole selection makes all its values selectable
+        Set<Long> selectable = new TreeSet<>();
+        Set<Long> available = new TreeSet<>();
+        for (int variant = 0; variant < matrix.variantIds.length; variant++) {
+            long[] values = matrix.values[variant];
+            int mismatch = -1;
+            boolean candidate = true;
+            for (int attribute = 0; attribute < selection.length && candidate; attribute++) {
+                if (selection[attribute] != 0 && selection[attribute] != values[attribute]) {
+                    candidate = mismatch < 0;
+                    mismatch = attribute;
+                }
+            }
+            if (!candidate) {
+                continue;
+            }
+            boolean inStock = availableById.getOrDefault(matrix.variantIds[variant], 0) > 0;
+            for (int attribute = 0; attribute < values.length; attribute++) {
+                if (values[attribute] != 0 && (mismatch < 0 || mismatch == attribute)) {
+                    selectable.add(values[attribute]);
+                    if (inStock) {
+                        available.add(values[attribute]);
+                    }
+                }
+            }
+        }
+
+        VariantResolutionDTO resolution = new VariantResolutionDTO();
+        List<Long> key = VariantMatrix.key(selection);
+        resolution.setSelectedValueIds(key);
+        Integer variant = matrix.variantByKey.get(key);
+        if (variant != null) {
+            Long variantId = matrix.variantIds[variant];
+            resolution.setVariant(
+                new VariantResolutionDTO.Variant(variantId, matrix.prices[variant], availableById.getOrDefault(variantId, 0))
+            );
+        }
+        resolution.setSelectableValueIds(List.copyOf(selectable));
+        resolution.setAvailableValueIds(List.copyOf(available));
+        return Optional.of(resolution);
+    }
+
+    /**
+     * Evict the matrix of a product; called by {@link ProductDetailService}, which evicts it with the product detail.
+     *
+     * @param productId the id of the product.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evict(Long productId) {
+        matrixCache.evict(productId);
+    }
+
+    /**
+     * Evict the matrices of all products.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evictAll() {
+        matrixCache.clear();
+    }
+
+    private VariantMatrix getMatrix(Long productId) {
+        VariantMatrix matrix = matrixCache.get(productId, VariantMatrix.class);
+        if (matrix == null) {
+            long generation = matrixCache.generation(productId);
+            List<Object[]> rows = productVariantRepository.findActiveMatrixRowsByProductId(productId);
+            if (rows.isEmpty() && !productRepository.existsById(productId)) {
+                return null;
+            }
+            matrix = VariantMatrix.of(productId, rows);
+            matrixCache.put(productId, matrix, generation);
+        }
+        return matrix;
+    }
+
+    /**
+     * The active variants of a product, each with its value of every attribute of the product, indexed by the sorted
+     * ids of its values. The instance is shared through the cache and never modified.
+     */
+    static final class VariantMatrix implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] attributeIds;
+
+        private final Map<Long, Integer> attributeByValueId;
+
+        private final long[] variantIds;
+
+        private final BigDecimal[] prices;
+
+        /**
+         * The value of each attribute for each variant, 0 when the variant has no value for the attribute.
+         */
+        private final long[][] values;
+
+        private final Map<List<Long>, Integer> variantByKey;
+
+        private VariantMatrix(
+            long[] attributeIds,
+            Map<Long, Integer> attributeByValueId,
+            long[] variantIds,
+            BigDecimal[] prices,
+            long[][] values,
+            Map<List<Long>, Integer> variantByKey
+        ) {
+            this.attributeIds = attributeIds;
+            this.attributeByValueId = attributeByValueId;
+            this.variantIds = variantIds;
+            this.prices = prices;
+            this.values = values;
+            this.variantByKey = variantByKey;
+        }
+
+        /**
+         * Build the matrix from rows of variant id, price, attribute value id and attribute id, by variant id.
+         */
+        static VariantMatrix of(Long productId, List<Object[]> rows) {
+            Set<Long> attributes = new TreeSet<>();
+            Map<Long, Long> attributeIdByValueId = new HashMap<>();
+            Map<Long, BigDecimal> priceByVariantId = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                priceByVariantId.put((Long) row[0], (BigDecimal) row[1]);
+                if (row[2] != null) {
+                    attributes.add((Long) row[3]);
+                    attributeIdByValueId.put((Long) row[2], (Long) row[3]);
+                }
+            }
+            long[] attributeIds = attributes.stream().mapToLong(Long::longValue).toArray();
+            Map<Long, Integer> attributeByValueId = new HashMap<>();
+            attributeIdByValueId.forEach((valueId, attributeId) ->
+                attributeByValueId.put(valueId, Arrays.binarySearch(attributeIds, attributeId))
+            );
+
+            List<Long> variantIdList = new ArrayList<>(priceByVariantId.keySet());
+            Map<Long, Integer> variantById = new HashMap<>();
+            long[][] values = new long[variantIdList.size()][attributeIds.length];
+            for (int variant = 0; variant < variantIdList.size(); variant++) {
+                variantById.put(variantIdList.get(variant), variant);
+            }
+            for (Object[] row : rows) {
+                if (row[2] != null) {
+                    long[] variantValues = values[variantById.get((Long) row[0])];
+                    int attribute = attributeByValueId.get((Long) row[2]);
+                    if (variantValues[attribute] == 0 || variantValues[attribute] > (Long) row[2]) {
+                        variantValues[attribute] = (Long) row[2];
+                    }
+                }
+            }
+
+            Map<List<Long>, Integer> variantByKey = new HashMap<>();
+            for (int variant = 0; variant < values.length; variant++) {
+                Integer previous = variantByKey.putIfAbsent(key(values[variant]), variant);
+                if (previous != null) {
+                    LOG.warn(
+                        "Variants {} and {} of product {} have the same attribute values",
+                        variantIdList.get(previous),
+                        variantIdList.get(variant),
+                        productId
+                    );
+                }
+            }
+            return new VariantMatrix(
+                attributeIds,
+                Map.copyOf(attributeByValueId),
+                variantIdList.stream().mapToLong(Long::longValue).toArray(),
+                priceByVariantId.values().toArray(new BigDecimal[0]),
+                values,
+                Map.copyOf(variantByKey)
+            );
+        }
+
+        /**
+         * The canonical key of a combination of values: the sorted ids of its values.
+         */
+        static List<Long> key(long[] values) {
+            return Arrays.stream(values).filter(value -> value != 0).sorted().boxed().toList();
+        }
+    }
+}
@@ -4,20 +4,34 @@ import com.quattrinh.shop.domain.Product;
 import com.quattrinh.shop.domain.ProductAttributeValue;
 import com.quattrinh.shop.domain.ProductVariant;
 import com.quattrinh.shop.repository.ProductAttributeValueRepository;
+import com.quattrinh.shop.repository.ProductRepository;
 import com.quattrinh.shop.repository.ProductVariantRepository;
 import com.quattrinh.shop.service.dto.ProductVariantDTO;
 import com.quattrinh.shop.service.dto.SimpleProductAttributeValueDTO;
+import com.quattrinh.shop.service.dto.VariantMatrixRequestDTO;
 import com.quattrinh.shop.service.mapper.ProductVariantMapper;
 import com.quattrinh.shop.service.mapper.SimpleProductAttributeValueMapper;
+import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 /**
  * Service Implementation for managing {@link com.quattrinh.shop.domain.ProductVariant}.
@@ -28,24 +42,47 @@ public class ProductVariantService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProductVariantService.class);
 
+    private static final String ENTITY_NAME = "productVariant";
+
+    /**
+     * The maximum number of combinations of a generated variant matrix.
+     */
+    private static final int MAX_MATRIX_SIZE = 1000;
+
     private final ProductVariantRepository productVariantRepository;
 
+    private final ProductRepository productRepository;
+
     private final ProductAttributeValueRepository productAttributeValueRepository;
 
     private final ProductVariantMapper productVariantMapper;
 
     private final SimpleProductAttributeValueMapper simpleProductAttributeValueMapper;
 
+    private final ProductDetailService productDetailService;
+
+    private final ProductFacetService productFacetService;
+
+    private final ProductRankingService productRankingService;
+
     public ProductVariantService(
         ProductVariantRepository productVariantRepository,
+        ProductRepository productRepository,
         ProductAttributeValueRepository productAttributeValueRepository,
         ProductVariantMapper productVariantMapper,
-        SimpleProductAttributeValueMapper simpleProductAttributeValueMapper
+        SimpleProductAttributeValueMapper simpleProductAttributeValueMapper,
+        ProductDetailService productDetailService,
+        ProductFacetService productFacetService,
+        ProductRankingService productRankingService
     ) {
         this.productVariantRepository = productVariantRepository;
+        this.productRepository = productRepository;
         this.productAttributeValueRepository = productAttributeValueRepository;
         this.productVariantMapper = productVariantMapper;
         this.simpleProductAttributeValueMapper = simpleProductAttributeValueMapper;
+        this.productDetailService = productDetailService;
+        this.productFacetService = productFacetService;
+        this.productRankingService = productRankingService;
     }
 
     /**
@@ -84,6 +121,7 @@ public class ProductVariantService {
         }
 
         productVariant = productVariantRepository.save(productVariant);
+        evictCatalogCaches(productVariant);
         ProductVariantDTO result = productVariantMapper.toDto(productVariant);
 
         // Manually map product
@@ -101,6 +139,107 @@ public class ProductVariantService {
         return result;
     }
 
+    /**
+     * Generate the variants of a product, one for each combination of one attribute value of each axis, skipping the
+     * combinations the product already has.
+     * <p>
+     * The attribute values are read with one query, and the variants and their attribute values are inserted in JDBC
+     * batches when the transaction is flushed.
+     *
+     * @param request the product, the axes, and the prices, stock and SKU prefix of the variants.
+     * @return the generated variants.
+     * @throws BadRequestAlertException if the product or an attribute value does not exist, if an axis is not made of
+     * values of one attribute of its own, if there are too many combinations, or if a generated SKU is not unique.
+     */
+    public List<ProductVariantDTO> generateMatrix(VariantMatrixRequestDTO request) {
+        LOG.debug("Request to generate ProductVariant matrix : {}", request);
+        Product product = productRepository
+            .findById(request.getProductId())
+            .orElseThrow(() -> new BadRequestAlertException("Product not found", ENTITY_NAME, "productnotfound"));
+
+        Set<Long> valueIds = request.getAxes().stream().flatMap(List::stream).collect(Collectors.toSet());
+        Map<Long, ProductAttributeValue> valuesById = productAttributeValueRepository
+            .findAllById(valueIds)
+            .stream()
+            .collect(Collectors.toMap(ProductAttributeValue::getId, Function.identity()));
+        if (valuesById.size() != valueIds.size()) {
+            throw new BadRequestAlertException("Attribute value not found", ENTITY_NAME, "attributevaluenotfound");
+        }
+
+        List<List<ProductAttributeValue>> combinations = List.of(List.of());
+        Set<Long> attributeIds = new HashSet<>();
+        for (List<Long> axisValueIds : request.getAxes()) {
+            List<ProductAttributeValue> axis = axisValueIds.stream().distinct().map(valuesById::get).toList();
+            Set<Long> axisAttributeIds = axis
+                .stream()
+                .map(value -> value.getAttribute() != null ? value.getAttribute().getId() : null)
+                .collect(Collectors.toSet());
+            Long attributeId = axisAttributeIds.size() == 1 ? axisAttributeIds.iterator().next() : null;
+            if (attributeId == null || !attributeIds.add(attributeId)) {
+                throw new BadRequestAlertException("Each axis must hold the values of its own attribute", ENTITY_NAME, "invalidaxis");
+            }
+            if ((long) combinations.size() * axis.size() > MAX_MATRIX_SIZE) {
+                throw new BadRequestAlertException("Too many combinations", ENTITY_NAME, "matrixtoolarge");
+            }
+            List<List<ProductAttributeValue>> next = new ArrayList<>(combinations.size() * axis.size());
+            for (List<ProductAttributeValue> combination : combinations) {
+                for (ProductAttributeValue value : axis) {
+                    List<ProductAttributeValue> extended = new ArrayList<>(combination);
+                    extended.add(value);
+                    next.add(extended);
+                }
+            }
+            combinations = next;
+        }
+
+        Map<Long, Set<Long>> valueIdsByVariantId = new HashMap<>();
+        for (Object[] row : productVariantRepository.findAttributeValueIdsByProductId(product.getId())) {
+            valueIdsByVariantId.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        Set<Set<Long>> existingCombinations = new HashSet<>(valueIdsByVariantId.values());
+
+        String skuPrefix = StringUtils.hasText(request.getSkuPrefix()) ? request.getSkuPrefix().trim() : "P" + product.getId();
+        Map<Long, BigDecimal> priceAdjustments = Objects.requireNonNullElse(request.getPriceAdjustments(), Map.of());
+        List<ProductVariant> variants = new ArrayList<>();
+        Set<String> skus = new HashSet<>();
+        for (List<ProductAttributeValue> combination : combinations) {
+            Set<Long> combinationValueIds = combination.stream().map(ProductAttributeValue::getId).collect(Collectors.toSet());
+            if (existingCombinations.contains(combinationValueIds)) {
+                continue;
+            }
+            StringBuilder sku = new StringBuilder(skuPrefix);
+            BigDecimal price = request.getPrice();
+            for (ProductAttributeValue value : combination) {
+                sku.append('-').append(toSkuPart(value));
+                price = price.add(Objects.requireNonNullElse(priceAdjustments.get(value.getId()), BigDecimal.ZERO));
+            }
+            if (sku.length() > 100 || !skus.add(sku.toString())) {
+                throw new BadRequestAlertException("Generated SKU too long or not unique: " + sku, ENTITY_NAME, "invalidsku");
+            }
+            ProductVariant variant = new ProductVariant()
+                .sku(sku.toString())
+                .price(price)
+                .costPrice(request.getCostPrice())
+                .stock(request.getStock())
+                .reserved(0)
+                .isActive(true)
+                .product(product);
+            variant.setAttributeValues(new HashSet<>(combination));
+            variants.add(variant);
+        }
+        if (variants.isEmpty()) {
+            return List.of();
+        }
+        List<String> existingSkus = productVariantRepository.findSkusBySkuIn(skus);
+        if (!existingSkus.isEmpty()) {
+            throw new BadRequestAlertException("SKU already exists: " + existingSkus, ENTITY_NAME, "skuexists");
+        }
+
+        productVariantRepository.saveAll(variants);
+        evictCatalogCaches(variants.get(0));
+        return variants.stream().map(productVariantMapper::toDto).toList();
+    }
+
     /**
      * Update a productVariant.
      *
@@ -114,6 +253,7 @@ public class ProductVariantService {
         ProductVariant existingVariant = productVariantRepository
             .findById(productVariantDTO.getId())
             .orElseThrow(() -> new RuntimeException("ProductVariant not found with id: " + productVariantDTO.getId()));
+        evictCatalogCaches(existingVariant);
 
         // Update basic fields
         existingVariant.setSku(productVariantDTO.getSku());
@@ -150,6 +290,7 @@ public class ProductVariantService {
         }
 
         ProductVariant savedVariant = productVariantRepository.save(existingVariant);
+        evictCatalogCaches(savedVariant);
         ProductVariantDTO result = productVariantMapper.toDto(savedVariant);
 
         // Manually map product
@@ -180,6 +321,7 @@ public class ProductVariantService {
         return productVariantRepository
             .findById(productVariantDTO.getId())
             .map(existingProductVariant -> {
+                evictCatalogCaches(existingProductVariant);
                 // Update only non-null fields
                 if (productVariantDTO.getSku() != null) {
                     existingProductVariant.setSku(productVariantDTO.getSku());
@@ -213,6 +355,7 @@ public class ProductVariantService {
             })
             .map(productVariantRepository::save)
             .map(variant -> {
+                evictCatalogCaches(variant);
                 ProductVariantDTO result = productVariantMapper.toDto(variant);
 
                 // Manually map product
@@ -282,8 +425,26 @@ public class ProductVariantService {
         productVariantRepository
             .findById(id)
             .ifPresent(variant -> {
+                evictCatalogCaches(variant);
                 variant.setIsActive(false);
                 productVariantRepository.save(variant);
             });
     }
+
+    private void evictCatalogCaches(ProductVariant variant) {
+        if (variant.getProduct() != null) {
+            productDetailService.evict(variant.getProduct().getId());
+            productRankingService.evict(variant.getProduct().getId());
+        }
+        productFacetService.invalidate();
+    }
+
+    /**
+     * The part of a SKU for an attribute value: its letters and digits, without diacritics, in upper case.
+     */
+    private static String toSkuPart(ProductAttributeValue value) {
+        String text = value.getValue() != null ? value.getValue().replace('\u0111', 'd').replace('\u0110', 'D') : "";
+        String part = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("[^A-Za-z0-9]", "").toUpperCase(Locale.ROOT);
+        return part.isEmpty() ? String.valueOf(value.getId()) : part;
+    }
 }
@@ -1,30 +1,39 @@
 package com.quattrinh.shop.service;
 
-import com.quattrinh.shop.domain.Cart;
+import com.quattrinh.shop.config.Constants;
 import com.quattrinh.shop.domain.CartItem;
 import com.quattrinh.shop.domain.OrderItem;
-import com.quattrinh.shop.domain.ProductVariant;
 import com.quattrinh.shop.domain.ShopOrder;
 import com.quattrinh.shop.domain.User;
 import com.quattrinh.shop.domain.enumeration.OrderStatus;
 import com.quattrinh.shop.repository.CartItemRepository;
-import com.quattrinh.shop.repository.CartRepository;
-import com.quattrinh.shop.repository.ProductVariantRepository;
+import com.quattrinh.shop.repository.CheckoutIdempotencyKeyRepository;
+import com.quattrinh.shop.repository.OrderItemRepository;
 import com.quattrinh.shop.repository.ShopOrderRepository;
 import com.quattrinh.shop.repository.UserRepository;
+import com.quattrinh.shop.security.SecurityUtils;
 import com.quattrinh.shop.service.dto.OrderItemDTO;
 import com.quattrinh.shop.service.dto.PaymentDTO;
 import com.quattrinh.shop.service.dto.ShopOrderDTO;
 import com.quattrinh.shop.service.mapper.OrderItemMapper;
+import com.quattrinh.shop.service.mapper.PaymentMapper;
 import com.quattrinh.shop.service.mapper.ShopOrderMapper;
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,29 +51,44 @@ public class ShopOrderService {
     private final UserRepository userRepository;
     private final ShopOrderMapper shopOrderMapper;
     private final OrderItemMapper orderItemMapper;
+    private final PaymentMapper paymentMapper;
     private final PaymentService paymentService;
-    private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final ProductVariantRepository productVariantRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final StockReservationService stockReservationService;
+    private final ProductRankingService productRankingService;
+    private final CatalogStatisticsService catalogStatisticsService;
+    private final CheckoutIdempotencyKeyRepository checkoutIdempotencyKeyRepository;
+    private final EntityManager entityManager;
 
     public ShopOrderService(
         ShopOrderRepository shopOrderRepository,
         UserRepository userRepository,
         ShopOrderMapper shopOrderMapper,
         OrderItemMapper orderItemMapper,
+        PaymentMapper paymentMapper,
         PaymentService paymentService,
-        CartRepository cartRepository,
         CartItemRepository cartItemRepository,
-        ProductVariantRepository productVariantRepository
+        OrderItemRepository orderItemRepository,
+        StockReservationService stockReservationService,
+        ProductRankingService productRankingService,
+        CatalogStatisticsService catalogStatisticsService,
+        CheckoutIdempotencyKeyRepository checkoutIdempotencyKeyRepository,
+        EntityManager entityManager
     ) {
         this.shopOrderRepository = shopOrderRepository;
         this.userRepository = userRepository;
         this.shopOrderMapper = shopOrderMapper;
         this.orderItemMapper = orderItemMapper;
+        this.paymentMapper = paymentMapper;
         this.paymentService = paymentService;
-        this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
-        this.productVariantRepository = productVariantRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.stockReservationService = stockReservationService;
+        this.productRankingService = productRankingService;
+        this.catalogStatisticsService = catalogStatisticsService;
+        this.checkoutIdempotencyKeyRepository = checkoutIdempotencyKeyRepository;
+        this.entityManager = entityManager;
     }
 
     /**
@@ -128,6 +152,35 @@ public class ShopOrderService {
         return shopOrderMapper.toDto(saved);
     }
 
+    /**
+     * Update the status of many orders at once.
+     * <p>
+     * Orders already in the target status are left untouched. When the target status is
+     * {@link OrderStatus#COMPLETED}, the reserved stock of all the transitioning orders is finalized in one statement.
+     *
+     * @param ids the ids of the orders.
+     * @param status the new status.
+     * @return the ids of the orders whose status changed.
+     */
+    public List<Long> updateStatuses(Collection<Long> ids, OrderStatus status) {
+        log.debug("Request to update status of {} ShopOrders to {}", ids.size(), status);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> transitioningIds = shopOrderRepository.lockIdsWithStatusOtherThan(ids, status);
+        if (transitioningIds.isEmpty()) {
+            return transitioningIds;
+        }
+        String modifiedBy = SecurityUtils.getCurrentUserLogin().orElse(Constants.SYSTEM);
+        shopOrderRepository.updateStatus(transitioningIds, status, Instant.now(), modifiedBy);
+        if (status == OrderStatus.COMPLETED) {
+            stockReservationService.finalizeOrders(transitioningIds);
+            productRankingService.recordCompletedOrders(transitioningIds);
+            catalogStatisticsService.ordersCompleted(transitioningIds);
+        }
+        return transitioningIds;
+    }
+
     /**
      * Get all the shopOrders.
      *
@@ -137,7 +190,7 @@ public class ShopOrderService {
     @Transactional(readOnly = true)
     public Page<ShopOrderDTO> findAll(Pageable pageable) {
         log.debug("Request to get all ShopOrders");
-        return shopOrderRepository.findAll(pageable).map(shopOrderMapper::toDto);
+        return shopOrderRepository.findAllWithUserAndPayment(pageable).map(shopOrderMapper::toDto);
     }
 
     /**
@@ -153,14 +206,84 @@ public class ShopOrderService {
     }
 
     /**
-     * Get all shopOrders for admin with eager relationships.
+     * Get a keyset page of shopOrders for admin with eager relationships, newest first.
+     * <p>
+     * The ids of the page are selected first, so the collection fetch join is applied to that page only and no count
+     * query is needed.
      *
+     * @param beforeId the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size the size of the page.
      * @return the list of entities.
      */
     @Transactional(readOnly = true)
-    public List<ShopOrderDTO> findAllForAdmin() {
-        log.debug("Request to get all ShopOrders for admin");
-        return shopOrderRepository.findAllWithEagerRelationships().stream().map(this::toDtoWithOrderItems).collect(Collectors.toList());
+    public List<ShopOrderDTO> findAllForAdmin(Long beforeId, int size) {
+        log.debug("Request to get ShopOrders for admin before id: {}", beforeId);
+        List<Long> ids = shopOrderRepository.findIdsBefore(beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.of(0, size));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return shopOrderRepository
+            .findAllWithEagerRelationshipsByIdIn(ids)
+            .stream()
+            .map(this::toDtoWithOrderItems)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Get a keyset page of shopOrders, oldest first.
+     * <p>
+     * Unlike {@link #findAll(Pageable)}, no count query is run and the cost of a page does not grow with its position.
+     *
+     * @param afterId the id of the last order of the previous page, or {@code null} for the first page.
+     * @param size the size of the page.
+     * @param eagerload whether to load the order items.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public List<ShopOrderDTO> findAllAfter(Long afterId, int size, boolean eagerload) {
+        log.debug("Request to get ShopOrders after id: {}", afterId);
+        long from = afterId != null ? afterId : Long.MIN_VALUE;
+        if (!eagerload) {
+            return shopOrderRepository
+                .findAllAfter(from, PageRequest.of(0, size))
+                .stream()
+                .map(shopOrderMapper::toDto)
+                .collect(Collectors.toList());
+        }
+        List<Long> ids = shopOrderRepository.findIdsAfter(from, PageRequest.of(0, size));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return shopOrderRepository
+            .findAllWithEagerRelationshipsByIdIn(ids)
+            .stream()
+            .sorted(Comparator.comparing(ShopOrder::getId))
+            .map(this::toDtoWithOrderItems)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Stream all shopOrders for admin with eager relationships, newest first.
+     * <p>
+     * Orders are read in keyset chunks and the persistence context is cleared after each chunk, so memory use does not
+     * depend on the number of orders.
+     *
+     * @param chunkSize the number of orders loaded per query.
+     * @param consumer the consumer receiving each order.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllForAdmin(int chunkSize, Consumer<ShopOrderDTO> consumer) {
+        log.debug("Request to stream all ShopOrders for admin");
+        Long beforeId = null;
+        List<ShopOrderDTO> chunk;
+        do {
+            chunk = findAllForAdmin(beforeId, chunkSize);
+            chunk.forEach(consumer);
+            entityManager.clear();
+            if (!chunk.isEmpty()) {
+                beforeId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == chunkSize);
     }
 
     /**
@@ -267,6 +390,73 @@ public class ShopOrderService {
     public ShopOrderDTO createOrderFromCheckout(com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest checkoutRequest) {
         log.debug("Request to create order from checkout: {}", checkoutRequest);
 
+        // Reserve all selected variants atomically before creating the order
+        List<CartItem> selectedCartItems = findSelectedCartItems(checkoutRequest);
+        Map<Long, Integer> quantitiesByVariantId = new TreeMap<>();
+        addQuantities(quantitiesByVariantId, selectedCartItems);
+        stockReservationService.reserve(quantitiesByVariantId);
+
+        return createOrder(checkoutRequest, selectedCartItems);
+    }
+
+    /**
+     * Create the orders of several checkout requests in the current transaction.
+     * <p>
+     * The stock of all the checkouts is reserved up front, in one pass over the variants in ascending id order, so that
+     * the batch locks its variants in the same order as a single checkout and cannot deadlock with one.
+     *
+     * @param checkoutRequests the checkout requests.
+     * @return the created orders, in the order of the requests.
+     */
+    @Transactional
+    public List<ShopOrderDTO> createOrdersFromCheckouts(
+        List<com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest> checkoutRequests
+    ) {
+        log.debug("Request to create {} orders from checkouts", checkoutRequests.size());
+        List<List<CartItem>> selectedCartItemsByRequest = new ArrayList<>(checkoutRequests.size());
+        Map<Long, Integer> quantitiesByVariantId = new TreeMap<>();
+        for (com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest checkoutRequest : checkoutRequests) {
+            List<CartItem> selectedCartItems = findSelectedCartItems(checkoutRequest);
+            addQuantities(quantitiesByVariantId, selectedCartItems);
+            selectedCartItemsByRequest.add(selectedCartItems);
+        }
+        stockReservationService.reserve(quantitiesByVariantId);
+
+        List<ShopOrderDTO> orders = new ArrayList<>(checkoutRequests.size());
+        for (int i = 0; i < checkoutRequests.size(); i++) {
+            orders.add(createOrder(checkoutRequests.get(i), selectedCartItemsByRequest.get(i)));
+        }
+        return orders;
+    }
+
+    /**
+     * Load the selected cart items of the user together with their variants in one query.
+     */
+    private List<CartItem> findSelectedCartItems(com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest checkoutRequest) {
+        if (checkoutRequest.getSelectedItemIds() == null || checkoutRequest.getSelectedItemIds().isEmpty()) {
+            return List.of();
+        }
+        List<CartItem> selectedCartItems = cartItemRepository.findSelectedByUserIdWithVariant(
+            checkoutRequest.getUserId(),
+            checkoutRequest.getSelectedItemIds()
+        );
+        log.debug("Found {} selected cart items for user: {}", selectedCartItems.size(), checkoutRequest.getUserId());
+        return selectedCartItems;
+    }
+
+    private static void addQuantities(Map<Long, Integer> quantitiesByVariantId, List<CartItem> cartItems) {
+        for (CartItem cartItem : cartItems) {
+            quantitiesByVariantId.merge(cartItem.getVariant().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+    }
+
+    /**
+     * Create the order of a checkout whose stock is already reserved.
+     */
+    private ShopOrderDTO createOrder(
+        com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest checkoutRequest,
+        List<CartItem> selectedCartItems
+    ) {
         // Get user
         User user = userRepository.findById(checkoutRequest.getUserId()).orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -283,59 +473,32 @@ public class ShopOrderService {
         ShopOrder savedOrder = shopOrderRepository.save(order);
         log.debug("Created order from checkout with ID: {}", savedOrder.getId());
 
-        // Get user's cart and selected cart items only
-        Optional<Cart> cart = cartRepository.findByUserId(checkoutRequest.getUserId());
-        if (cart.isPresent() && checkoutRequest.getSelectedItemIds() != null && !checkoutRequest.getSelectedItemIds().isEmpty()) {
-            List<CartItem> allCartItems = cartItemRepository.findByCartId(cart.get().getId());
-
-            // Filter only selected items
-            List<CartItem> selectedCartItems = allCartItems
-                .stream()
-                .filter(cartItem -> checkoutRequest.getSelectedItemIds().contains(cartItem.getId()))
-                .collect(java.util.stream.Collectors.toList());
-
-            log.debug(
-                "Found {} selected cart items out of {} total for user: {}",
-                selectedCartItems.size(),
-                allCartItems.size(),
-                checkoutRequest.getUserId()
-            );
-
+        if (!selectedCartItems.isEmpty()) {
             // Create order items from selected cart items only
+            List<OrderItem> orderItems = new ArrayList<>(selectedCartItems.size());
             for (CartItem cartItem : selectedCartItems) {
-                ProductVariant variant = productVariantRepository
-                    .findById(cartItem.getVariant().getId())
-                    .orElseThrow(() -> new RuntimeException("Product variant not found"));
-
-                int available = getAvailableQuantity(variant);
-                if (available < cartItem.getQuantity()) {
-                    throw new RuntimeException("Not enough available stock for variant: " + variant.getId());
-                }
-
-                reserveVariant(variant, cartItem.getQuantity());
-
                 OrderItem orderItem = new OrderItem();
-                orderItem.setOrder(savedOrder);
-                orderItem.setVariant(variant);
+                orderItem.setVariant(cartItem.getVariant());
                 orderItem.setQuantity(cartItem.getQuantity());
                 orderItem.setPrice(cartItem.getPrice());
 
                 // Add to order
                 savedOrder.addOrderItem(orderItem);
+                orderItems.add(orderItem);
             }
 
-            // Save order with items
-            savedOrder = shopOrderRepository.save(savedOrder);
-            log.debug("Created {} order items for order: {}", selectedCartItems.size(), savedOrder.getId());
+            // Order items use a pooled sequence, so their inserts are batched on flush
+            orderItemRepository.saveAll(orderItems);
+            log.debug("Created {} order items for order: {}", orderItems.size(), savedOrder.getId());
 
-            // Delete only selected cart items
-            cartItemRepository.deleteAll(selectedCartItems);
+            // Delete only selected cart items, in one statement
+            cartItemRepository.deleteAllInBatch(selectedCartItems);
             log.debug("Deleted {} selected cart items for user: {}", selectedCartItems.size(), checkoutRequest.getUserId());
         }
 
         // Create payment record
         PaymentDTO payment = paymentService.createPaymentForOrder(
-            savedOrder.getId(),
+            savedOrder,
             checkoutRequest.getPaymentMethod(),
             checkoutRequest.getTotal()
         );
@@ -344,22 +507,27 @@ public class ShopOrderService {
         return shopOrderMapper.toDto(savedOrder);
     }
 
-    private int getAvailableQuantity(ProductVariant variant) {
-        if (variant == null) {
-            return 0;
-        }
-        int stock = variant.getStock() != null ? variant.getStock() : 0;
-        int reserved = variant.getReserved() != null ? variant.getReserved() : 0;
-        return Math.max(0, stock - reserved);
-    }
-
-    private void reserveVariant(ProductVariant variant, int quantity) {
-        if (variant == null || quantity <= 0) {
-            return;
-        }
-        int reserved = variant.getReserved() != null ? variant.getReserved() : 0;
-        variant.setReserved(reserved + quantity);
-        productVariantRepository.save(variant);
+    /**
+     * Create order from checkout request, recording the idempotency key in the same transaction.
+     * <p>
+     * The key is claimed before any stock is reserved, so a duplicate running on another node blocks on the key
+     * and fails instead of reserving stock a second time.
+     *
+     * @param checkoutRequest the checkout request.
+     * @param idempotencyKey the scoped idempotency key.
+     * @param requestHash the hash of the checkout request, recorded with the key.
+     * @return the created order.
+     */
+    @Transactional
+    public ShopOrderDTO createOrderFromCheckout(
+        com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest checkoutRequest,
+        String idempotencyKey,
+        String requestHash
+    ) {
+        checkoutIdempotencyKeyRepository.insertKey(idempotencyKey, checkoutRequest.getUserId(), Instant.now(), requestHash);
+        ShopOrderDTO result = createOrderFromCheckout(checkoutRequest);
+        checkoutIdempotencyKeyRepository.assignOrder(idempotencyKey, result.getId());
+        return result;
     }
 
     private void handleOrderCompletionTransition(OrderStatus previousStatus, ShopOrder updatedOrder) {
@@ -368,33 +536,9 @@ public class ShopOrderService {
         }
         OrderStatus newStatus = updatedOrder.getStatus();
         if (newStatus == OrderStatus.COMPLETED && previousStatus != OrderStatus.COMPLETED) {
-            ShopOrder orderWithItems = shopOrderRepository.findOneWithEagerRelationships(updatedOrder.getId()).orElse(updatedOrder);
-            finalizeOrderItemsStock(orderWithItems);
-        }
-    }
-
-    private void finalizeOrderItemsStock(ShopOrder order) {
-        if (order == null || order.getOrderItems() == null) {
-            return;
-        }
-
-        for (OrderItem orderItem : order.getOrderItems()) {
-            ProductVariant variant = orderItem.getVariant();
-            if (variant == null) {
-                continue;
-            }
-
-            ProductVariant managedVariant = productVariantRepository
-                .findById(variant.getId())
-                .orElseThrow(() -> new RuntimeException("Product variant not found during finalization"));
-
-            int stock = managedVariant.getStock() != null ? managedVariant.getStock() : 0;
-            int reserved = managedVariant.getReserved() != null ? managedVariant.getReserved() : 0;
-            int quantity = orderItem.getQuantity() != null ? orderItem.getQuantity() : 0;
-
-            managedVariant.setStock(Math.max(0, stock - quantity));
-            managedVariant.setReserved(Math.max(0, reserved - quantity));
-            productVariantRepository.save(managedVariant);
+            stockReservationService.finalizeOrders(List.of(updatedOrder.getId()));
+            productRankingService.recordCompletedOrders(List.of(updatedOrder.getId()));
+            catalogStatisticsService.ordersCompleted(List.of(updatedOrder.getId()));
         }
     }
 
@@ -413,9 +557,10 @@ public class ShopOrderService {
             dto.setOrderItems(orderItemDTOs);
         }
 
-        // Get payment for this order
-        Optional<PaymentDTO> payment = paymentService.findByOrderId(shopOrder.getId());
-        payment.ifPresent(dto::setPayment);
+        // Payment is fetched with the order, no extra query per order
+        if (shopOrder.getPayment() != null) {
+            dto.setPayment(paymentMapper.toDto(shopOrder.getPayment()));
+        }
 
         return dto;
     }
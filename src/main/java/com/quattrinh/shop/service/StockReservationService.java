@@ -0,0 +1,70 @@
+package com.quattrinh.shop.service;
+
+import com.quattrinh.shop.domain.ProductVariant;
+import com.quattrinh.shop.repository.ProductVariantRepository;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service reserving {@link ProductVariant} stock for checkouts and finalizing it once orders are completed.
+ * <p>
+ * Each variant is reserved with one conditional update, so the availability check and the increment of
+ * {@code reserved} happen atomically in the database. Variants are always updated in ascending id order, so two
+ * checkouts sharing variants lock the rows in the same order and cannot deadlock.
+ */
+@Service
+@Transactional
+public class StockReservationService {
+
+    private final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final ProductVariantRepository productVariantRepository;
+
+    public StockReservationService(ProductVariantRepository productVariantRepository) {
+        this.productVariantRepository = productVariantRepository;
+    }
+
+    /**
+     * Reserve the given quantities, all or nothing.
+     * <p>
+     * When one variant does not have enough available stock an {@link InsufficientStockException} is thrown and the
+     * surrounding transaction rolls back the reservations already made.
+     *
+     * @param quantitiesByVariantId the quantity to reserve, keyed by variant id.
+     */
+    public void reserve(Map<Long, Integer> quantitiesByVariantId) {
+        log.debug("Request to reserve stock : {}", quantitiesByVariantId);
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantitiesByVariantId).entrySet()) {
+            int quantity = entry.getValue() != null ? entry.getValue() : 0;
+            if (quantity <= 0) {
+                continue;
+            }
+            if (productVariantRepository.reserveIfAvailable(entry.getKey(), quantity) == 0) {
+                throw new InsufficientStockException(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Finalize the reservations of completed orders: their quantities leave both {@code stock} and {@code reserved}.
+     * <p>
+     * All items of all the given orders are handled by a single set-based statement, once their variants are locked in
+     * ascending id order like a checkout locks them.
+     *
+     * @param orderIds the ids of the orders which just became completed.
+     */
+    public void finalizeOrders(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        log.debug("Request to finalize reserved stock of orders : {}", orderIds);
+        productVariantRepository.lockIdsByOrderIdIn(orderIds);
+        int updated = productVariantRepository.finalizeReservedStockForOrders(orderIds);
+        log.debug("Finalized reserved stock of {} variants for {} orders", updated, orderIds.size());
+    }
+}
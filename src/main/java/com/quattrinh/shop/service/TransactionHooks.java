@@ -0,0 +1,47 @@
+package com.quattrinh.shop.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers running actions once the current transaction commits, for the in-memory structures and caches shared by
+ * all transactions, which must only see committed changes.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    /**
+     * Run an action once the current transaction commits, or now if there is no transaction. Nothing runs if the
+     * transaction rolls back.
+     *
+     * @param action the action.
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Run an invalidation now, so that the transaction itself does not read stale state, and again once it commits,
+     * for the reads of other transactions that loaded the previous state meanwhile.
+     *
+     * @param action the invalidation.
+     */
+    static void nowAndAfterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            afterCommit(action);
+        }
+    }
+}
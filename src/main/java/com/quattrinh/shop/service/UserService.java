@@ -41,16 +41,20 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
+    private final CatalogStatisticsService catalogStatisticsService;
+
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        CacheManager cacheManager,
+        CatalogStatisticsService catalogStatisticsService
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.catalogStatisticsService = catalogStatisticsService;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -130,6 +134,7 @@ public class UserService {
         authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
+        catalogStatisticsService.usersChanged(1);
         this.clearUserCaches(newUser);
         LOG.debug("Created Information for User: {}", newUser);
         return newUser;
@@ -141,6 +146,7 @@ public class UserService {
         }
         userRepository.delete(existingUser);
         userRepository.flush();
+        catalogStatisticsService.usersChanged(-1);
         this.clearUserCaches(existingUser);
         return true;
     }
@@ -175,6 +181,7 @@ public class UserService {
             user.setAuthorities(authorities);
         }
         userRepository.save(user);
+        catalogStatisticsService.usersChanged(1);
         this.clearUserCaches(user);
         LOG.debug("Created Information for User: {}", user);
         return user;
@@ -223,6 +230,7 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(user -> {
                 userRepository.delete(user);
+                catalogStatisticsService.usersChanged(-1);
                 this.clearUserCaches(user);
                 LOG.debug("Deleted User: {}", user);
             });
@@ -302,6 +310,7 @@ public class UserService {
             .forEach(user -> {
                 LOG.debug("Deleting not activated user {}", user.getLogin());
                 userRepository.delete(user);
+                catalogStatisticsService.usersChanged(-1);
                 this.clearUserCaches(user);
             });
     }
@@ -32,6 +32,10 @@ public class ProductCriteria implements Serializable, Criteria {
 
     private LongFilter categoriesId;
 
+    private LongFilter categorySubtreeId;
+
+    private BigDecimalFilter averageRating;
+
     private Boolean distinct;
 
     public ProductCriteria() {}
@@ -42,6 +46,8 @@ public class ProductCriteria implements Serializable, Criteria {
         this.basePrice = other.optionalBasePrice().map(BigDecimalFilter::copy).orElse(null);
         this.imageUrl = other.optionalImageUrl().map(StringFilter::copy).orElse(null);
         this.categoriesId = other.optionalCategoriesId().map(LongFilter::copy).orElse(null);
+        this.categorySubtreeId = other.optionalCategorySubtreeId().map(LongFilter::copy).orElse(null);
+        this.averageRating = other.optionalAverageRating().map(BigDecimalFilter::copy).orElse(null);
         this.distinct = other.distinct;
     }
 
@@ -145,6 +151,47 @@ public class ProductCriteria implements Serializable, Criteria {
         this.categoriesId = categoriesId;
     }
 
+    /**
+     * The categories whose subtrees the products are in, only compared with {@code equals} and {@code in}.
+     */
+    public LongFilter getCategorySubtreeId() {
+        return categorySubtreeId;
+    }
+
+    public Optional<LongFilter> optionalCategorySubtreeId() {
+        return Optional.ofNullable(categorySubtreeId);
+    }
+
+    public LongFilter categorySubtreeId() {
+        if (categorySubtreeId == null) {
+            setCategorySubtreeId(new LongFilter());
+        }
+        return categorySubtreeId;
+    }
+
+    public void setCategorySubtreeId(LongFilter categorySubtreeId) {
+        this.categorySubtreeId = categorySubtreeId;
+    }
+
+    public BigDecimalFilter getAverageRating() {
+        return averageRating;
+    }
+
+    public Optional<BigDecimalFilter> optionalAverageRating() {
+        return Optional.ofNullable(averageRating);
+    }
+
+    public BigDecimalFilter averageRating() {
+        if (averageRating == null) {
+            setAverageRating(new BigDecimalFilter());
+        }
+        return averageRating;
+    }
+
+    public void setAverageRating(BigDecimalFilter averageRating) {
+        this.averageRating = averageRating;
+    }
+
     public Boolean getDistinct() {
         return distinct;
     }
@@ -179,13 +226,15 @@ public class ProductCriteria implements Serializable, Criteria {
             Objects.equals(basePrice, that.basePrice) &&
             Objects.equals(imageUrl, that.imageUrl) &&
             Objects.equals(categoriesId, that.categoriesId) &&
+            Objects.equals(categorySubtreeId, that.categorySubtreeId) &&
+            Objects.equals(averageRating, that.averageRating) &&
             Objects.equals(distinct, that.distinct)
         );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, basePrice, imageUrl, categoriesId, distinct);
+        return Objects.hash(id, name, basePrice, imageUrl, categoriesId, categorySubtreeId, averageRating, distinct);
     }
 
     // prettier-ignore
@@ -197,6 +246,8 @@ public class ProductCriteria implements Serializable, Criteria {
             optionalBasePrice().map(f -> "basePrice=" + f + ", ").orElse("") +
             optionalImageUrl().map(f -> "imageUrl=" + f + ", ").orElse("") +
             optionalCategoriesId().map(f -> "categoriesId=" + f + ", ").orElse("") +
+            optionalCategorySubtreeId().map(f -> "categorySubtreeId=" + f + ", ").orElse("") +
+            optionalAverageRating().map(f -> "averageRating=" + f + ", ").orElse("") +
             optionalDistinct().map(f -> "distinct=" + f + ", ").orElse("") +
         "}";
     }
@@ -0,0 +1,108 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A DTO for a {@link com.quattrinh.shop.domain.Category} in the category hierarchy, with its subcategories nested.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class CategoryNodeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String image;
+
+    private Boolean isActive;
+
+    private Long productCount;
+
+    private List<CategoryNodeDTO> children = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public Boolean getIsActive() {
+        return isActive;
+    }
+
+    public void setIsActive(Boolean isActive) {
+        this.isActive = isActive;
+    }
+
+    public Long getProductCount() {
+        return productCount;
+    }
+
+    public void setProductCount(Long productCount) {
+        this.productCount = productCount;
+    }
+
+    public List<CategoryNodeDTO> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<CategoryNodeDTO> children) {
+        this.children = children;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CategoryNodeDTO)) {
+            return false;
+        }
+
+        CategoryNodeDTO categoryNodeDTO = (CategoryNodeDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, categoryNodeDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CategoryNodeDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", isActive='" + getIsActive() + "'" +
+            ", productCount=" + getProductCount() +
+            ", children=" + getChildren().size() +
+            "}";
+    }
+}
@@ -0,0 +1,124 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A DTO describing the state of a checkout queued for asynchronous processing.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class CheckoutTicketDTO implements Serializable {
+
+    public enum Status {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED,
+    }
+
+    private String ticketId;
+
+    private Status status;
+
+    private Long orderId;
+
+    private String error;
+
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    public CheckoutTicketDTO() {}
+
+    public CheckoutTicketDTO(String ticketId, Status status, Long orderId, String error, Instant createdAt, Instant updatedAt) {
+        this.ticketId = ticketId;
+        this.status = status;
+        this.orderId = orderId;
+        this.error = error;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CheckoutTicketDTO)) {
+            return false;
+        }
+
+        CheckoutTicketDTO checkoutTicketDTO = (CheckoutTicketDTO) o;
+        if (this.ticketId == null) {
+            return false;
+        }
+        return Objects.equals(this.ticketId, checkoutTicketDTO.ticketId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.ticketId);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "CheckoutTicketDTO{" +
+            "ticketId='" + getTicketId() + "'" +
+            ", status='" + getStatus() + "'" +
+            ", orderId=" + getOrderId() +
+            ", error='" + getError() + "'" +
+            ", createdAt='" + getCreatedAt() + "'" +
+            ", updatedAt='" + getUpdatedAt() + "'" +
+            "}";
+    }
+}
@@ -3,7 +3,9 @@ package com.quattrinh.shop.service.dto;
 import jakarta.validation.constraints.*;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -31,6 +33,17 @@ public class ProductDTO implements Serializable {
 
     private Boolean isActive = true;
 
+    private Integer ratingCount;
+
+    private Long ratingSum;
+
+    private BigDecimal averageRating;
+
+    /**
+     * The number of reviews rating the product 1 to 5, in that order. Like the other rating aggregates, it is read-only.
+     */
+    private List<Integer> ratingHistogram = new ArrayList<>();
+
     public Long getId() {
         return id;
     }
@@ -95,6 +108,38 @@ public class ProductDTO implements Serializable {
         this.isActive = isActive;
     }
 
+    public Integer getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Integer ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public Long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(Long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public BigDecimal getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(BigDecimal averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public List<Integer> getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(List<Integer> ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
+    }
+
     public ProductDTO id(Long id) {
         this.setId(id);
         return this;
@@ -138,6 +183,8 @@ public class ProductDTO implements Serializable {
             ", categories=" + getCategories() +
             ", variants=" + getVariants() +
             ", isActive=" + getIsActive() +
+            ", ratingCount=" + getRatingCount() +
+            ", averageRating=" + getAverageRating() +
             "}";
     }
 }
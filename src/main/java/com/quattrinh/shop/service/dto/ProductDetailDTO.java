@@ -0,0 +1,254 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO for the product detail page: the {@link com.quattrinh.shop.domain.Product} with its variants, their attribute
+ * values, the images and the possible values of each attribute.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductDetailDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private ProductDTO product;
+
+    private List<Variant> variants = new ArrayList<>();
+
+    private List<String> images = new ArrayList<>();
+
+    private Map<String, List<String>> attributes = new LinkedHashMap<>();
+
+    public ProductDTO getProduct() {
+        return product;
+    }
+
+    public void setProduct(ProductDTO product) {
+        this.product = product;
+    }
+
+    public List<Variant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<Variant> variants) {
+        this.variants = variants;
+    }
+
+    public List<String> getImages() {
+        return images;
+    }
+
+    public void setImages(List<String> images) {
+        this.images = images;
+    }
+
+    public Map<String, List<String>> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, List<String>> attributes) {
+        this.attributes = attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductDetailDTO{" + "product=" + getProduct() + ", variants=" + getVariants() + ", images=" + getImages() + "}";
+    }
+
+    /**
+     * A variant of the product with its stock levels.
+     */
+    public static class Variant implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long id;
+
+        private String sku;
+
+        private BigDecimal price;
+
+        private Integer stock;
+
+        private Integer reserved;
+
+        private Integer available;
+
+        private String imageUrl;
+
+        private Boolean isActive;
+
+        private List<AttributeValue> attributeValues = new ArrayList<>();
+
+        public Variant() {}
+
+        public Variant(Variant variant) {
+            this.id = variant.id;
+            this.sku = variant.sku;
+            this.price = variant.price;
+            this.stock = variant.stock;
+            this.reserved = variant.reserved;
+            this.available = variant.available;
+            this.imageUrl = variant.imageUrl;
+            this.isActive = variant.isActive;
+            this.attributeValues = variant.attributeValues;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public Integer getStock() {
+            return stock;
+        }
+
+        public void setStock(Integer stock) {
+            this.stock = stock;
+        }
+
+        public Integer getReserved() {
+            return reserved;
+        }
+
+        public void setReserved(Integer reserved) {
+            this.reserved = reserved;
+        }
+
+        public Integer getAvailable() {
+            return available;
+        }
+
+        public void setAvailable(Integer available) {
+            this.available = available;
+        }
+
+        public String getImageUrl() {
+            return imageUrl;
+        }
+
+        public void setImageUrl(String imageUrl) {
+            this.imageUrl = imageUrl;
+        }
+
+        public Boolean getIsActive() {
+            return isActive;
+        }
+
+        public void setIsActive(Boolean isActive) {
+            this.isActive = isActive;
+        }
+
+        public List<AttributeValue> getAttributeValues() {
+            return attributeValues;
+        }
+
+        public void setAttributeValues(List<AttributeValue> attributeValues) {
+            this.attributeValues = attributeValues;
+        }
+
+        /**
+         * Set the stock levels, deriving the available quantity from them.
+         *
+         * @param stock the stock, {@code null} meaning 0.
+         * @param reserved the reserved quantity, {@code null} meaning 0.
+         */
+        public void applyStock(Integer stock, Integer reserved) {
+            this.stock = stock != null ? stock : 0;
+            this.reserved = reserved != null ? reserved : 0;
+            this.available = Math.max(0, this.stock - this.reserved);
+        }
+
+        @Override
+        public String toString() {
+            return "Variant{" + "id=" + getId() + ", sku='" + getSku() + "'" + ", available=" + getAvailable() + "}";
+        }
+    }
+
+    /**
+     * An attribute value of a variant, with the name of its attribute.
+     */
+    public static class AttributeValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long id;
+
+        private String value;
+
+        private Long attributeId;
+
+        private String attributeName;
+
+        public AttributeValue() {}
+
+        public AttributeValue(Long id, String value, Long attributeId, String attributeName) {
+            this.id = id;
+            this.value = value;
+            this.attributeId = attributeId;
+            this.attributeName = attributeName;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public Long getAttributeId() {
+            return attributeId;
+        }
+
+        public void setAttributeId(Long attributeId) {
+            this.attributeId = attributeId;
+        }
+
+        public String getAttributeName() {
+            return attributeName;
+        }
+
+        public void setAttributeName(String attributeName) {
+            this.attributeName = attributeName;
+        }
+
+        @Override
+        public String toString() {
+            return "AttributeValue{" + "id=" + getId() + ", value='" + getValue() + "'" + ", attributeName='" + getAttributeName() + "'}";
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for a faceted catalog query: a page of the matching products, their total and the number of matching products
+ * for each value of each facet.
+ * <p>
+ * The count of a facet value is computed with the filters of the other facets only, so that it is the total the
+ * shopper would get by also selecting that value.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductFacetsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long total;
+
+    private List<ProductListItemDTO> products = new ArrayList<>();
+
+    private List<FacetValue> categories = new ArrayList<>();
+
+    private List<AttributeFacet> attributes = new ArrayList<>();
+
+    private List<PriceBucket> priceBuckets = new ArrayList<>();
+
+    private long inStock;
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<ProductListItemDTO> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductListItemDTO> products) {
+        this.products = products;
+    }
+
+    public List<FacetValue> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<FacetValue> categories) {
+        this.categories = categories;
+    }
+
+    public List<AttributeFacet> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(List<AttributeFacet> attributes) {
+        this.attributes = attributes;
+    }
+
+    public List<PriceBucket> getPriceBuckets() {
+        return priceBuckets;
+    }
+
+    public void setPriceBuckets(List<PriceBucket> priceBuckets) {
+        this.priceBuckets = priceBuckets;
+    }
+
+    public long getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(long inStock) {
+        this.inStock = inStock;
+    }
+
+    @Override
+    public String toString() {
+        return (
+            "ProductFacetsDTO{" +
+            "total=" +
+            getTotal() +
+            ", products=" +
+            getProducts().size() +
+            ", categories=" +
+            getCategories() +
+            ", attributes=" +
+            getAttributes() +
+            ", priceBuckets=" +
+            getPriceBuckets() +
+            ", inStock=" +
+            getInStock() +
+            "}"
+        );
+    }
+
+    /**
+     * A value of a facet, such as a category or an attribute value, with its number of matching products.
+     */
+    public static class FacetValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long id;
+
+        private String label;
+
+        private long count;
+
+        public FacetValue() {}
+
+        public FacetValue(Long id, String label, long count) {
+            this.id = id;
+            this.label = label;
+            this.count = count;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public void setLabel(String label) {
+            this.label = label;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return "FacetValue{" + "id=" + getId() + ", label='" + getLabel() + "'" + ", count=" + getCount() + "}";
+        }
+    }
+
+    /**
+     * The facet of a product attribute, such as size or color.
+     */
+    public static class AttributeFacet implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long id;
+
+        private String name;
+
+        private List<FacetValue> values = new ArrayList<>();
+
+        public AttributeFacet() {}
+
+        public AttributeFacet(Long id, String name, List<FacetValue> values) {
+            this.id = id;
+            this.name = name;
+            this.values = values;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public List<FacetValue> getValues() {
+            return values;
+        }
+
+        public void setValues(List<FacetValue> values) {
+            this.values = values;
+        }
+
+        @Override
+        public String toString() {
+            return "AttributeFacet{" + "id=" + getId() + ", name='" + getName() + "'" + ", values=" + getValues() + "}";
+        }
+    }
+
+    /**
+     * A price range, with its number of matching products. The minimum is inclusive and the maximum exclusive, and
+     * either is {@code null} when unbounded.
+     */
+    public static class PriceBucket implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private BigDecimal min;
+
+        private BigDecimal max;
+
+        private long count;
+
+        public PriceBucket() {}
+
+        public PriceBucket(BigDecimal min, BigDecimal max, long count) {
+            this.min = min;
+            this.max = max;
+            this.count = count;
+        }
+
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        public void setMin(BigDecimal min) {
+            this.min = min;
+        }
+
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        public void setMax(BigDecimal max) {
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        @Override
+        public String toString() {
+            return "PriceBucket{" + "min=" + getMin() + ", max=" + getMax() + ", count=" + getCount() + "}";
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A DTO for a product in a catalog grid: only what a product card shows, with the price range and the availability of
+ * its active variants.
+ * <p>
+ * The {@link CategoryDTO} instances of a listing are shared by all the products of a category, and must not be
+ * modified.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class ProductListItemDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private String imageUrl;
+
+    private BigDecimal basePrice;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    private boolean inStock;
+
+    private BigDecimal averageRating;
+
+    private Integer ratingCount;
+
+    private List<CategoryDTO> categories = new ArrayList<>();
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public BigDecimal getBasePrice() {
+        return basePrice;
+    }
+
+    public void setBasePrice(BigDecimal basePrice) {
+        this.basePrice = basePrice;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public boolean isInStock() {
+        return inStock;
+    }
+
+    public void setInStock(boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    public BigDecimal getAverageRating() {
+        return averageRating;
+    }
+
+    public void setAverageRating(BigDecimal averageRating) {
+        this.averageRating = averageRating;
+    }
+
+    public Integer getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(Integer ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public List<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryDTO> categories) {
+        this.categories = categories;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductListItemDTO)) {
+            return false;
+        }
+
+        ProductListItemDTO productListItemDTO = (ProductListItemDTO) o;
+        if (this.id == null) {
+            return false;
+        }
+        return Objects.equals(this.id, productListItemDTO.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductListItemDTO{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", minPrice=" + getMinPrice() +
+            ", maxPrice=" + getMaxPrice() +
+            ", inStock=" + isInStock() +
+            "}";
+    }
+}
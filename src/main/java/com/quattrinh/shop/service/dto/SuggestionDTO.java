@@ -0,0 +1,78 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for a typeahead suggestion: a product or a category matching the typed prefix.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class SuggestionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY,
+    }
+
+    private Type type;
+
+    private Long id;
+
+    private String name;
+
+    public SuggestionDTO() {}
+
+    public SuggestionDTO(Type type, Long id, String name) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SuggestionDTO)) {
+            return false;
+        }
+        SuggestionDTO that = (SuggestionDTO) o;
+        return type == that.type && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id);
+    }
+
+    @Override
+    public String toString() {
+        return "SuggestionDTO{" + "type=" + getType() + ", id=" + getId() + ", name='" + getName() + "'}";
+    }
+}
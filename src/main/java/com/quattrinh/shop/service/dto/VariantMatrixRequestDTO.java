@@ -0,0 +1,113 @@
+package com.quattrinh.shop.service.dto;
+
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DTO for the generation of the variants of a product from attribute value axes, one variant for each combination
+ * of one value of each axis.
+ * <p>
+ * The price of a variant is {@code price} plus the {@code priceAdjustments} of its values, and its SKU is the
+ * {@code skuPrefix} followed by its values, in the order of the axes.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class VariantMatrixRequestDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull
+    private Long productId;
+
+    @NotEmpty
+    private List<@NotEmpty List<@NotNull Long>> axes = new ArrayList<>();
+
+    @Size(max = 50)
+    private String skuPrefix;
+
+    @NotNull
+    private BigDecimal price;
+
+    @NotNull
+    private BigDecimal costPrice;
+
+    @NotNull
+    @Min(value = 0)
+    private Integer stock = 0;
+
+    private Map<Long, BigDecimal> priceAdjustments = new HashMap<>();
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public List<List<Long>> getAxes() {
+        return axes;
+    }
+
+    public void setAxes(List<List<Long>> axes) {
+        this.axes = axes;
+    }
+
+    public String getSkuPrefix() {
+        return skuPrefix;
+    }
+
+    public void setSkuPrefix(String skuPrefix) {
+        this.skuPrefix = skuPrefix;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public BigDecimal getCostPrice() {
+        return costPrice;
+    }
+
+    public void setCostPrice(BigDecimal costPrice) {
+        this.costPrice = costPrice;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Map<Long, BigDecimal> getPriceAdjustments() {
+        return priceAdjustments;
+    }
+
+    public void setPriceAdjustments(Map<Long, BigDecimal> priceAdjustments) {
+        this.priceAdjustments = priceAdjustments;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "VariantMatrixRequestDTO{" +
+            "productId=" + getProductId() +
+            ", axes=" + getAxes() +
+            ", skuPrefix='" + getSkuPrefix() + "'" +
+            ", price=" + getPrice() +
+            ", costPrice=" + getCostPrice() +
+            ", stock=" + getStock() +
+            ", priceAdjustments=" + getPriceAdjustments() +
+            "}";
+    }
+}
@@ -0,0 +1,121 @@
+package com.quattrinh.shop.service.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for a selection of attribute values of a product: the variant it designates when complete, and the values
+ * that can still be chosen with it.
+ * <p>
+ * A value is selectable when an active variant has it together with the selected values of the other attributes, and
+ * available when one of those variants is in stock.
+ */
+@SuppressWarnings("common-java:DuplicatedBlocks")
+public class VariantResolutionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<Long> selectedValueIds = new ArrayList<>();
+
+    private Variant variant;
+
+    private List<Long> selectableValueIds = new ArrayList<>();
+
+    private List<Long> availableValueIds = new ArrayList<>();
+
+    public List<Long> getSelectedValueIds() {
+        return selectedValueIds;
+    }
+
+    public void setSelectedValueIds(List<Long> selectedValueIds) {
+        this.selectedValueIds = selectedValueIds;
+    }
+
+    public Variant getVariant() {
+        return variant;
+    }
+
+    public void setVariant(Variant variant) {
+        this.variant = variant;
+    }
+
+    public List<Long> getSelectableValueIds() {
+        return selectableValueIds;
+    }
+
+    public void setSelectableValueIds(List<Long> selectableValueIds) {
+        this.selectableValueIds = selectableValueIds;
+    }
+
+    public List<Long> getAvailableValueIds() {
+        return availableValueIds;
+    }
+
+    public void setAvailableValueIds(List<Long> availableValueIds) {
+        this.availableValueIds = availableValueIds;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "VariantResolutionDTO{" +
+            "selectedValueIds=" + getSelectedValueIds() +
+            ", variant=" + getVariant() +
+            ", selectableValueIds=" + getSelectableValueIds() +
+            ", availableValueIds=" + getAvailableValueIds() +
+            "}";
+    }
+
+    /**
+     * The variant with exactly the selected values, with its current available quantity.
+     */
+    public static class Variant implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long id;
+
+        private BigDecimal price;
+
+        private int available;
+
+        public Variant() {}
+
+        public Variant(Long id, BigDecimal price, int available) {
+            this.id = id;
+            this.price = price;
+            this.available = available;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public int getAvailable() {
+            return available;
+        }
+
+        public void setAvailable(int available) {
+            this.available = available;
+        }
+
+        @Override
+        public String toString() {
+            return "Variant{" + "id=" + getId() + ", price=" + getPrice() + ", available=" + getAvailable() + "}";
+        }
+    }
+}
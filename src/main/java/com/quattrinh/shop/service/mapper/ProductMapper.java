@@ -38,6 +38,18 @@ public class ProductMapper {
         dto.setBasePrice(product.getBasePrice());
         dto.setImageUrl(product.getImageUrl());
         dto.setIsActive(product.getIsActive());
+        dto.setRatingCount(product.getRatingCount());
+        dto.setRatingSum(product.getRatingSum());
+        dto.setAverageRating(product.getAverageRating());
+        dto.setRatingHistogram(
+            List.of(
+                product.getRating1Count(),
+                product.getRating2Count(),
+                product.getRating3Count(),
+                product.getRating4Count(),
+                product.getRating5Count()
+            )
+        );
 
         // Map categories
         Set<CategoryDTO> categoryDTOs = new HashSet<>();
@@ -3,6 +3,7 @@ package com.quattrinh.shop.web.rest;
 import com.quattrinh.shop.repository.CategoryRepository;
 import com.quattrinh.shop.service.CategoryQueryService;
 import com.quattrinh.shop.service.CategoryService;
+import com.quattrinh.shop.service.CategoryTreeService;
 import com.quattrinh.shop.service.criteria.CategoryCriteria;
 import com.quattrinh.shop.service.dto.CategoryDTO;
 import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
@@ -18,7 +19,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -164,20 +167,24 @@ public class CategoryResource {
     }
 
     /**
-     * {@code GET  /categories/hierarchy} : get all categories in hierarchical structure.
+     * {@code GET  /categories/hierarchy} : get all categories nested under their parents, with the product counts of
+     * their active subtrees.
+     * <p>
+     * The response carries a strong {@code ETag} and is answered with {@code 304 (Not Modified)} when it matches the
+     * {@code If-None-Match} header of the request, so that browsers and caches revalidate it instead of downloading it.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the hierarchical list of categories in body.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the root categories, by id, in body.
      */
     @GetMapping("/hierarchy")
-    public ResponseEntity<List<CategoryDTO>> getCategoriesHierarchy() {
+    public ResponseEntity<byte[]> getCategoriesHierarchy() {
         LOG.debug("REST request to get Categories hierarchy");
-
-        // Get all categories without pagination
-        Page<CategoryDTO> page = categoryQueryService.findByCriteria(new CategoryCriteria(), Pageable.unpaged());
-        List<CategoryDTO> allCategories = page.getContent();
-
-        // Build hierarchy (this will be handled in frontend for now)
-        return ResponseEntity.ok().body(allCategories);
+        CategoryTreeService.SerializedHierarchy hierarchy = categoryService.findHierarchy();
+        // The not modified response is sent by Spring MVC from the ETag of the response entity
+        return ResponseEntity.ok()
+            .eTag(hierarchy.etag())
+            .cacheControl(CacheControl.noCache().cachePublic())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(hierarchy.json());
     }
 
     /**
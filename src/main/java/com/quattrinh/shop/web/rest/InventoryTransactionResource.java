@@ -6,6 +6,7 @@ import com.quattrinh.shop.service.InventoryTransactionService;
 import com.quattrinh.shop.service.criteria.InventoryTransactionCriteria;
 import com.quattrinh.shop.service.dto.InventoryTransactionDTO;
 import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import com.quattrinh.shop.web.rest.util.KeysetPaginationUtil;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import java.net.URI;
@@ -151,15 +152,34 @@ public class InventoryTransactionResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset cursor; when present (empty for the first page) the transactions are listed by ascending id
+     * without a total count, and the {@code Link} header carries the cursor of the next page.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of inventoryTransactions in body.
      */
     @GetMapping("")
     public ResponseEntity<List<InventoryTransactionDTO>> getAllInventoryTransactions(
         InventoryTransactionCriteria criteria,
-        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
     ) {
         LOG.debug("REST request to get InventoryTransactions by criteria: {}", criteria);
 
+        if (after != null) {
+            Long afterId = KeysetPaginationUtil.decodeCursor(after, ENTITY_NAME);
+            List<InventoryTransactionDTO> transactions = inventoryTransactionQueryService.findByCriteriaAfter(
+                criteria,
+                afterId,
+                pageable.getPageSize()
+            );
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                transactions,
+                pageable.getPageSize(),
+                InventoryTransactionDTO::getId
+            );
+            return ResponseEntity.ok().headers(headers).body(transactions);
+        }
+
         Page<InventoryTransactionDTO> page = inventoryTransactionQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
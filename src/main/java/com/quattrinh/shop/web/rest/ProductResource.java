@@ -1,13 +1,30 @@
 package com.quattrinh.shop.web.rest;
 
+import com.quattrinh.shop.config.ApplicationProperties;
 import com.quattrinh.shop.repository.ProductRepository;
+import com.quattrinh.shop.service.CatalogSuggestService;
+import com.quattrinh.shop.service.HomePageCacheService;
+import com.quattrinh.shop.service.ProductDetailService;
+import com.quattrinh.shop.service.ProductFacetService;
 import com.quattrinh.shop.service.ProductQueryService;
+import com.quattrinh.shop.service.ProductRankingService.Section;
+import com.quattrinh.shop.service.ProductReviewService;
 import com.quattrinh.shop.service.ProductService;
+import com.quattrinh.shop.service.ProductVariantMatrixService;
 import com.quattrinh.shop.service.criteria.ProductCriteria;
 import com.quattrinh.shop.service.dto.ProductDTO;
+import com.quattrinh.shop.service.dto.ProductDetailDTO;
+import com.quattrinh.shop.service.dto.ProductFacetsDTO;
+import com.quattrinh.shop.service.dto.ProductListItemDTO;
+import com.quattrinh.shop.service.dto.ProductReviewDTO;
+import com.quattrinh.shop.service.dto.SuggestionDTO;
+import com.quattrinh.shop.service.dto.VariantResolutionDTO;
 import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import com.quattrinh.shop.web.rest.util.KeysetPaginationUtil;
+import com.quattrinh.shop.web.rest.util.SlicePaginationUtil;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -19,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -47,10 +65,42 @@ public class ProductResource {
 
     private final ProductQueryService productQueryService;
 
-    public ProductResource(ProductService productService, ProductRepository productRepository, ProductQueryService productQueryService) {
+    private final ProductDetailService productDetailService;
+
+    private final CatalogSuggestService catalogSuggestService;
+
+    private final ProductFacetService productFacetService;
+
+    private final HomePageCacheService homePageCacheService;
+
+    private final ProductReviewService productReviewService;
+
+    private final ProductVariantMatrixService productVariantMatrixService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductResource(
+        ProductService productService,
+        ProductRepository productRepository,
+        ProductQueryService productQueryService,
+        ProductDetailService productDetailService,
+        CatalogSuggestService catalogSuggestService,
+        ProductFacetService productFacetService,
+        HomePageCacheService homePageCacheService,
+        ProductReviewService productReviewService,
+        ProductVariantMatrixService productVariantMatrixService,
+        ApplicationProperties applicationProperties
+    ) {
         this.productService = productService;
         this.productRepository = productRepository;
         this.productQueryService = productQueryService;
+        this.productDetailService = productDetailService;
+        this.catalogSuggestService = catalogSuggestService;
+        this.productFacetService = productFacetService;
+        this.homePageCacheService = homePageCacheService;
+        this.productReviewService = productReviewService;
+        this.productVariantMatrixService = productVariantMatrixService;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -146,20 +196,70 @@ public class ProductResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset cursor; when present (empty for the first page) the products are listed by ascending id
+     * without a total count, and the {@code Link} header carries the cursor of the next page.
+     * @param skipCount whether to skip counting the matching products, for infinite scroll clients; defaults to
+     * {@code application.catalog.skip-total-count}.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
      */
     @GetMapping("")
     public ResponseEntity<List<ProductDTO>> getAllProducts(
         ProductCriteria criteria,
-        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after,
+        @RequestParam(required = false) Boolean skipCount
     ) {
         LOG.debug("REST request to get Products by criteria: {}", criteria);
 
+        if (after != null) {
+            Long afterId = KeysetPaginationUtil.decodeCursor(after, ENTITY_NAME);
+            List<ProductDTO> products = productQueryService.findByCriteriaAfter(criteria, afterId, pageable.getPageSize());
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                products,
+                pageable.getPageSize(),
+                ProductDTO::getId
+            );
+            return ResponseEntity.ok().headers(headers).body(products);
+        }
+
+        if (pageable.isPaged() && (skipCount != null ? skipCount : applicationProperties.getCatalog().isSkipTotalCount())) {
+            Slice<ProductDTO> slice = productQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
         Page<ProductDTO> page = productQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /products/listing} : get the products matching the criteria for a catalog grid: their name, image,
+     * price range, availability, rating and categories, without their variants.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param skipCount whether to skip counting the matching products, for infinite scroll clients; defaults to
+     * {@code application.catalog.skip-total-count}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of products in body.
+     */
+    @GetMapping("/listing")
+    public ResponseEntity<List<ProductListItemDTO>> getProductListing(
+        ProductCriteria criteria,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(required = false) Boolean skipCount
+    ) {
+        LOG.debug("REST request to get Product listing by criteria: {}", criteria);
+        if (pageable.isPaged() && (skipCount != null ? skipCount : applicationProperties.getCatalog().isSkipTotalCount())) {
+            Slice<ProductListItemDTO> slice = productQueryService.findListingSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = SlicePaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+            return ResponseEntity.ok().headers(headers).body(slice.getContent());
+        }
+        Page<ProductListItemDTO> page = productQueryService.findListingByCriteria(criteria, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
     /**
      * {@code GET  /products/count} : count all the products.
      *
@@ -172,6 +272,53 @@ public class ProductResource {
         return ResponseEntity.ok().body(productQueryService.countByCriteria(criteria));
     }
 
+    /**
+     * {@code GET  /products/suggest} : suggest products and categories for the text typed in the search box.
+     *
+     * @param q the typed text.
+     * @param limit the maximum number of suggestions.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of suggestions in body.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam("q") String q, @RequestParam(defaultValue = "8") int limit) {
+        LOG.debug("REST request to suggest Products and Categories for: {}", q);
+        int boundedLimit = Math.max(1, Math.min(limit, CatalogSuggestService.TOP_K));
+        return ResponseEntity.ok().body(catalogSuggestService.suggest(q, boundedLimit));
+    }
+
+    /**
+     * {@code GET  /products/facets} : get the active products matching the selected facets, with the count of every
+     * facet value.
+     *
+     * @param categoryId the selected categories.
+     * @param attributeValueId the selected attribute values.
+     * @param minPrice the minimum price, inclusive.
+     * @param maxPrice the maximum price, inclusive.
+     * @param inStock whether only products with a matching variant in stock are requested.
+     * @param pageable the pagination information of the products, ordered by id.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the products and facet counts in body.
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getProductFacets(
+        @RequestParam(required = false) List<Long> categoryId,
+        @RequestParam(required = false) List<Long> attributeValueId,
+        @RequestParam(required = false) BigDecimal minPrice,
+        @RequestParam(required = false) BigDecimal maxPrice,
+        @RequestParam(defaultValue = "false") boolean inStock,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable
+    ) {
+        LOG.debug("REST request to get Product facets, categories: {}, attribute values: {}", categoryId, attributeValueId);
+        ProductFacetsDTO facets = productFacetService.findFacets(
+            categoryId != null ? categoryId : List.of(),
+            attributeValueId != null ? attributeValueId : List.of(),
+            minPrice,
+            maxPrice,
+            inStock,
+            pageable
+        );
+        return ResponseEntity.ok().body(facets);
+    }
+
     /**
      * {@code GET  /products/with-variants} : get all the products with their variants.
      *
@@ -199,7 +346,7 @@ public class ProductResource {
     @GetMapping("/featured")
     public ResponseEntity<List<ProductDTO>> getFeaturedProducts(@RequestParam(defaultValue = "8") int limit) {
         LOG.debug("REST request to get Featured Products, limit: {}", limit);
-        List<ProductDTO> featuredProducts = productService.findFeaturedProducts(limit);
+        List<ProductDTO> featuredProducts = homePageCacheService.getSection(Section.FEATURED, limit);
         return ResponseEntity.ok().body(featuredProducts);
     }
 
@@ -212,7 +359,7 @@ public class ProductResource {
     @GetMapping("/new")
     public ResponseEntity<List<ProductDTO>> getNewProducts(@RequestParam(defaultValue = "3") int limit) {
         LOG.debug("REST request to get New Products, limit: {}", limit);
-        List<ProductDTO> newProducts = productService.findNewProducts(limit);
+        List<ProductDTO> newProducts = homePageCacheService.getSection(Section.NEW, limit);
         return ResponseEntity.ok().body(newProducts);
     }
 
@@ -225,7 +372,7 @@ public class ProductResource {
     @GetMapping("/trend")
     public ResponseEntity<List<ProductDTO>> getTrendProducts(@RequestParam(defaultValue = "3") int limit) {
         LOG.debug("REST request to get Trend Products, limit: {}", limit);
-        List<ProductDTO> trendProducts = productService.findTrendProducts(limit);
+        List<ProductDTO> trendProducts = homePageCacheService.getSection(Section.TREND, limit);
         return ResponseEntity.ok().body(trendProducts);
     }
 
@@ -238,7 +385,7 @@ public class ProductResource {
     @GetMapping("/best-seller")
     public ResponseEntity<List<ProductDTO>> getBestSellerProducts(@RequestParam(defaultValue = "3") int limit) {
         LOG.debug("REST request to get Best Seller Products, limit: {}", limit);
-        List<ProductDTO> bestSellerProducts = productService.findBestSellerProducts(limit);
+        List<ProductDTO> bestSellerProducts = homePageCacheService.getSection(Section.BEST_SELLER, limit);
         return ResponseEntity.ok().body(bestSellerProducts);
     }
 
@@ -250,7 +397,7 @@ public class ProductResource {
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getProductStats() {
         LOG.debug("REST request to get Product Statistics");
-        Map<String, Object> stats = productService.getProductStats();
+        Map<String, Object> stats = homePageCacheService.getProductStats();
         return ResponseEntity.ok().body(stats);
     }
 
@@ -274,13 +421,54 @@ public class ProductResource {
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the product detail, or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/{id}/detail")
-    public ResponseEntity<Map<String, Object>> getProductDetail(@PathVariable("id") Long id) {
+    public ResponseEntity<ProductDetailDTO> getProductDetail(@PathVariable("id") Long id) {
         LOG.debug("REST request to get Product Detail : {}", id);
-        Map<String, Object> productDetail = productService.getProductDetail(id);
-        if (productDetail == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok().body(productDetail);
+        return ResponseUtil.wrapOrNotFound(productDetailService.getProductDetail(id));
+    }
+
+    /**
+     * {@code GET  /products/:id/variants/resolve} : resolve a selection of attribute values of the "id" product.
+     *
+     * @param id the id of the product.
+     * @param valueIds the ids of the selected attribute values, at most one per attribute.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the variant of a complete selection
+     * and the values still selectable, with status {@code 400 (Bad Request)} if the selection is not valid for the
+     * product, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/{id}/variants/resolve")
+    public ResponseEntity<VariantResolutionDTO> resolveProductVariant(
+        @PathVariable("id") Long id,
+        @RequestParam(name = "valueIds", required = false, defaultValue = "") List<Long> valueIds
+    ) {
+        LOG.debug("REST request to resolve ProductVariant of Product {} : {}", id, valueIds);
+        return ResponseUtil.wrapOrNotFound(productVariantMatrixService.resolve(id, valueIds));
+    }
+
+    /**
+     * {@code GET  /products/:id/reviews} : get the reviews of the "id" product, newest first.
+     *
+     * @param id the id of the product.
+     * @param pageable the pagination information; only the size is used.
+     * @param after the keyset cursor, absent or empty for the first page; the {@code Link} header carries the cursor
+     * of the next page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of reviews in body.
+     */
+    @GetMapping("/{id}/reviews")
+    public ResponseEntity<List<ProductReviewDTO>> getProductReviews(
+        @PathVariable("id") Long id,
+        @org.springdoc.core.annotations.ParameterObject Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
+    ) {
+        LOG.debug("REST request to get ProductReviews of Product : {}", id);
+        Long beforeId = KeysetPaginationUtil.decodeCursor(after, "productReview");
+        List<ProductReviewDTO> reviews = productReviewService.findByProduct(id, beforeId, pageable.getPageSize());
+        HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            reviews,
+            pageable.getPageSize(),
+            ProductReviewDTO::getId
+        );
+        return ResponseEntity.ok().headers(headers).body(reviews);
     }
 
     /**
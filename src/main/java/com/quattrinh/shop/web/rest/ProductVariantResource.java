@@ -5,6 +5,7 @@ import com.quattrinh.shop.service.ProductVariantQueryService;
 import com.quattrinh.shop.service.ProductVariantService;
 import com.quattrinh.shop.service.criteria.ProductVariantCriteria;
 import com.quattrinh.shop.service.dto.ProductVariantDTO;
+import com.quattrinh.shop.service.dto.VariantMatrixRequestDTO;
 import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -19,6 +20,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -76,6 +78,24 @@ public class ProductVariantResource {
             .body(productVariantDTO);
     }
 
+    /**
+     * {@code POST  /product-variants/matrix} : Generate the variants of a product for every combination of the given
+     * attribute value axes, skipping the combinations the product already has.
+     *
+     * @param request the product, the axes, and the prices, stock and SKU prefix of the variants.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the generated variants, or with
+     * status {@code 400 (Bad Request)} if the request is not valid or a generated SKU already exists.
+     */
+    @PostMapping("/matrix")
+    public ResponseEntity<List<ProductVariantDTO>> generateProductVariantMatrix(@Valid @RequestBody VariantMatrixRequestDTO request) {
+        LOG.debug("REST request to generate ProductVariant matrix : {}", request);
+        List<ProductVariantDTO> variants = productVariantService.generateMatrix(request);
+        String message = applicationName + "." + ENTITY_NAME + ".matrixCreated";
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createAlert(applicationName, message, String.valueOf(variants.size())))
+            .body(variants);
+    }
+
     /**
      * {@code PUT  /product-variants/:id} : Updates an existing productVariant.
      *
@@ -1,23 +1,39 @@
 package com.quattrinh.shop.web.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.quattrinh.shop.domain.enumeration.OrderStatus;
+import com.quattrinh.shop.management.CheckoutMetersService;
 import com.quattrinh.shop.repository.ShopOrderRepository;
+import com.quattrinh.shop.service.CheckoutIdempotencyService;
+import com.quattrinh.shop.service.CheckoutQueueFullException;
+import com.quattrinh.shop.service.CheckoutQueueService;
+import com.quattrinh.shop.service.IdempotencyKeyReusedException;
 import com.quattrinh.shop.service.ShopOrderService;
+import com.quattrinh.shop.service.dto.CheckoutTicketDTO;
 import com.quattrinh.shop.service.dto.ShopOrderDTO;
 import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import com.quattrinh.shop.web.rest.util.KeysetPaginationUtil;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -36,6 +52,16 @@ public class ShopOrderResource {
 
     private static final String ENTITY_NAME = "shopOrder";
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final int IDEMPOTENCY_KEY_MAX_LENGTH = 64;
+
+    private static final int BULK_STATUS_UPDATE_MAX_SIZE = 1000;
+
+    private static final int ADMIN_PAGE_MAX_SIZE = 200;
+
+    private static final int ADMIN_EXPORT_CHUNK_SIZE = 200;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
@@ -43,9 +69,28 @@ public class ShopOrderResource {
 
     private final ShopOrderRepository shopOrderRepository;
 
-    public ShopOrderResource(ShopOrderService shopOrderService, ShopOrderRepository shopOrderRepository) {
+    private final CheckoutMetersService checkoutMetersService;
+
+    private final CheckoutIdempotencyService checkoutIdempotencyService;
+
+    private final CheckoutQueueService checkoutQueueService;
+
+    private final ObjectMapper objectMapper;
+
+    public ShopOrderResource(
+        ShopOrderService shopOrderService,
+        ShopOrderRepository shopOrderRepository,
+        CheckoutMetersService checkoutMetersService,
+        CheckoutIdempotencyService checkoutIdempotencyService,
+        CheckoutQueueService checkoutQueueService,
+        ObjectMapper objectMapper
+    ) {
         this.shopOrderService = shopOrderService;
         this.shopOrderRepository = shopOrderRepository;
+        this.checkoutMetersService = checkoutMetersService;
+        this.checkoutIdempotencyService = checkoutIdempotencyService;
+        this.checkoutQueueService = checkoutQueueService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -140,13 +185,28 @@ public class ShopOrderResource {
      *
      * @param pageable the pagination information.
      * @param eagerload flag to eager load entities from relationships (This is applicable for many-to-many).
+     * @param after the keyset cursor; when present (empty for the first page) the orders are listed by ascending id
+     * without a total count, and the {@code Link} header carries the cursor of the next page.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shopOrders in body.
      */
     @GetMapping("")
     public ResponseEntity<List<ShopOrderDTO>> getAllShopOrders(
         @org.springdoc.core.annotations.ParameterObject Pageable pageable,
-        @RequestParam(required = false, defaultValue = "false") boolean eagerload
+        @RequestParam(required = false, defaultValue = "false") boolean eagerload,
+        @RequestParam(name = KeysetPaginationUtil.AFTER_PARAMETER, required = false) String after
     ) {
+        if (after != null) {
+            log.debug("REST request to get a keyset page of ShopOrders");
+            Long afterId = KeysetPaginationUtil.decodeCursor(after, ENTITY_NAME);
+            List<ShopOrderDTO> orders = shopOrderService.findAllAfter(afterId, pageable.getPageSize(), eagerload);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                orders,
+                pageable.getPageSize(),
+                ShopOrderDTO::getId
+            );
+            return ResponseEntity.ok().headers(headers).body(orders);
+        }
         log.debug("REST request to get a page of ShopOrders");
         Page<ShopOrderDTO> page;
         if (eagerload) {
@@ -159,15 +219,59 @@ public class ShopOrderResource {
     }
 
     /**
-     * {@code GET  /shop-orders/admin} : get all shopOrders for admin with eager relationships.
+     * {@code GET  /shop-orders/admin} : get a keyset page of shopOrders for admin with eager relationships, newest first.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shopOrders in body.
+     * @param before the id of the last order of the previous page, absent for the first page.
+     * @param size the size of the page.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of shopOrders in body,
+     * with a {@code Link} header pointing to the next page when the page is full.
      */
     @GetMapping("/admin")
-    public ResponseEntity<List<ShopOrderDTO>> getAllShopOrdersForAdmin() {
-        log.debug("REST request to get all ShopOrders for admin");
-        List<ShopOrderDTO> orders = shopOrderService.findAllForAdmin();
-        return ResponseEntity.ok().body(orders);
+    public ResponseEntity<List<ShopOrderDTO>> getAllShopOrdersForAdmin(
+        @RequestParam(required = false) Long before,
+        @RequestParam(required = false, defaultValue = "20") int size
+    ) {
+        log.debug("REST request to get ShopOrders for admin before : {}", before);
+        int pageSize = Math.min(Math.max(size, 1), ADMIN_PAGE_MAX_SIZE);
+        List<ShopOrderDTO> orders = shopOrderService.findAllForAdmin(before, pageSize);
+        HttpHeaders headers = new HttpHeaders();
+        if (orders.size() == pageSize) {
+            headers = KeysetPaginationUtil.generateNextLinkHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                "before",
+                String.valueOf(orders.get(orders.size() - 1).getId()),
+                pageSize
+            );
+        }
+        return ResponseEntity.ok().headers(headers).body(orders);
+    }
+
+    /**
+     * {@code GET  /shop-orders/admin/export} : stream all shopOrders for admin with eager relationships, newest first.
+     * <p>
+     * The JSON array is written incrementally while orders are read in chunks, so the whole list is never held in memory.
+     *
+     * @param response the response to write the JSON array to.
+     * @throws IOException if the response cannot be written.
+     */
+    @GetMapping("/admin/export")
+    public void exportAllShopOrdersForAdmin(HttpServletResponse response) throws IOException {
+        log.debug("REST request to export all ShopOrders for admin");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            shopOrderService.streamAllForAdmin(ADMIN_EXPORT_CHUNK_SIZE, order -> {
+                try {
+                    generator.writeObject(order);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -214,6 +318,31 @@ public class ShopOrderResource {
             .body(result);
     }
 
+    /**
+     * {@code PATCH  /shop-orders/status} : update the status of many orders at once.
+     *
+     * @param statusRequest the ids of the orders and their new status.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ids of the orders whose status changed,
+     * or with status {@code 400 (Bad Request)} if the request is not valid.
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<List<Long>> updateOrderStatuses(@NotNull @RequestBody BulkStatusUpdateRequest statusRequest) {
+        log.debug("REST request to update status of ShopOrders: {}", statusRequest);
+        if (statusRequest.getStatus() == null) {
+            throw new BadRequestAlertException("Invalid status", ENTITY_NAME, "statusnull");
+        }
+        if (statusRequest.getIds() == null || statusRequest.getIds().isEmpty()) {
+            throw new BadRequestAlertException("No order selected", ENTITY_NAME, "idsempty");
+        }
+        if (statusRequest.getIds().size() > BULK_STATUS_UPDATE_MAX_SIZE) {
+            throw new BadRequestAlertException("Too many orders in one request", ENTITY_NAME, "idstoomany");
+        }
+        List<Long> updatedIds = shopOrderService.updateStatuses(new TreeSet<>(statusRequest.getIds()), statusRequest.getStatus());
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createAlert(applicationName, updatedIds.size() + " orders updated", String.valueOf(updatedIds.size())))
+            .body(updatedIds);
+    }
+
     /**
      * {@code GET  /shop-orders/user/{userId} : get all orders for a specific user.
      *
@@ -229,22 +358,90 @@ public class ShopOrderResource {
 
     /**
      * {@code POST  /shop-orders/checkout} : Create a new order from checkout.
+     * <p>
+     * When an {@code Idempotency-Key} header is sent, retries with the same key return the order created by the first
+     * request instead of creating a new one. Keys are kept for a day.
      *
+     * @param idempotencyKey the optional idempotency key chosen by the client.
      * @param checkoutRequest the checkout request data.
-     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new shopOrderDTO.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new shopOrderDTO, or with
+     * status {@code 422 (Unprocessable Entity)} if the idempotency key was already used for a different request.
      */
     @PostMapping("/checkout")
-    public ResponseEntity<ShopOrderDTO> checkout(@RequestBody CheckoutRequest checkoutRequest) {
-        log.debug("REST request to checkout : {}", checkoutRequest);
+    public ResponseEntity<ShopOrderDTO> checkout(
+        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+        @RequestBody CheckoutRequest checkoutRequest
+    ) {
+        log.debug("REST request to checkout : {}, idempotency key : {}", checkoutRequest, idempotencyKey);
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > IDEMPOTENCY_KEY_MAX_LENGTH)) {
+            throw new BadRequestAlertException("Invalid Idempotency-Key", ENTITY_NAME, "idempotencykeyinvalid");
+        }
         try {
-            ShopOrderDTO result = shopOrderService.createOrderFromCheckout(checkoutRequest);
+            ShopOrderDTO result = checkoutMetersService.trackStatements(() ->
+                idempotencyKey != null
+                    ? checkoutIdempotencyService.checkout(idempotencyKey, checkoutRequest)
+                    : shopOrderService.createOrderFromCheckout(checkoutRequest)
+            );
             return ResponseEntity.ok().body(result);
+        } catch (IdempotencyKeyReusedException e) {
+            log.warn("Rejected checkout reusing idempotency key {} for a different request", idempotencyKey);
+            return ResponseEntity.unprocessableEntity().build();
         } catch (Exception e) {
             log.error("Error during checkout", e);
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * {@code POST  /shop-orders/checkout/async} : Queue a checkout for asynchronous processing.
+     *
+     * @param checkoutRequest the checkout request data.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the ticket to poll,
+     * or with status {@code 503 (Service Unavailable)} if the checkout queue is full.
+     */
+    @PostMapping("/checkout/async")
+    public ResponseEntity<CheckoutTicketDTO> checkoutAsync(@RequestBody CheckoutRequest checkoutRequest) throws URISyntaxException {
+        log.debug("REST request to queue checkout : {}", checkoutRequest);
+        if (!checkoutQueueService.isEnabled()) {
+            throw new BadRequestAlertException("Asynchronous checkout is disabled", ENTITY_NAME, "asynccheckoutdisabled");
+        }
+        validateCheckoutRequest(checkoutRequest);
+        try {
+            CheckoutTicketDTO ticket = checkoutQueueService.enqueue(checkoutRequest);
+            return ResponseEntity.accepted().location(new URI("/api/shop-orders/checkout/tickets/" + ticket.getTicketId())).body(ticket);
+        } catch (CheckoutQueueFullException e) {
+            log.warn("Checkout queue is full, rejecting checkout for user: {}", checkoutRequest.getUserId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /**
+     * {@code GET  /shop-orders/checkout/tickets/:ticketId} : get the status of a queued checkout.
+     *
+     * @param ticketId the id of the ticket.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ticket, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/checkout/tickets/{ticketId}")
+    public ResponseEntity<CheckoutTicketDTO> getCheckoutTicket(@PathVariable String ticketId) {
+        log.debug("REST request to get checkout ticket : {}", ticketId);
+        return ResponseUtil.wrapOrNotFound(checkoutQueueService.findTicket(ticketId));
+    }
+
+    private void validateCheckoutRequest(CheckoutRequest checkoutRequest) {
+        if (checkoutRequest.getUserId() == null) {
+            throw new BadRequestAlertException("User is required", ENTITY_NAME, "usernull");
+        }
+        if (checkoutRequest.getTotal() == null || checkoutRequest.getTotal().signum() < 0) {
+            throw new BadRequestAlertException("Invalid total", ENTITY_NAME, "totalinvalid");
+        }
+        if (checkoutRequest.getShippingAddress() == null || checkoutRequest.getShippingAddress().isBlank()) {
+            throw new BadRequestAlertException("Shipping address is required", ENTITY_NAME, "shippingaddressnull");
+        }
+        if (checkoutRequest.getSelectedItemIds() == null || checkoutRequest.getSelectedItemIds().isEmpty()) {
+            throw new BadRequestAlertException("No cart item selected", ENTITY_NAME, "itemsempty");
+        }
+    }
+
     /**
      * Checkout request DTO
      */
@@ -307,6 +504,34 @@ public class ShopOrderResource {
         }
     }
 
+    public static class BulkStatusUpdateRequest {
+
+        private List<Long> ids;
+
+        private OrderStatus status;
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        public OrderStatus getStatus() {
+            return status;
+        }
+
+        public void setStatus(OrderStatus status) {
+            this.status = status;
+        }
+
+        @Override
+        public String toString() {
+            return "BulkStatusUpdateRequest{ids=" + ids + ", status=" + status + "}";
+        }
+    }
+
     public static class StatusUpdateRequest {
 
         private OrderStatus status;
@@ -0,0 +1,115 @@
+package com.quattrinh.shop.web.rest.util;
+
+import com.quattrinh.shop.web.rest.errors.BadRequestAlertException;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for keyset (cursor) pagination.
+ * <p>
+ * Unlike {@link tech.jhipster.web.util.PaginationUtil}, no total count is computed: the {@code Link} header only
+ * carries the {@code first} and, when the page is full, the {@code next} page. The cursor is an opaque token wrapping
+ * the id of the last element of the page, so fetching any page costs the same as fetching the first one.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAMETER = "after";
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Encode the id of the last element of a page as an opaque cursor.
+     *
+     * @param id the id.
+     * @return the cursor.
+     */
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor produced by {@link #encodeCursor(Long)}.
+     *
+     * @param cursor the cursor, blank for the first page.
+     * @param entityName the name of the listed entity, used in the error.
+     * @return the id to list after, or {@code null} for the first page.
+     * @throws BadRequestAlertException if the cursor is not valid.
+     */
+    public static Long decodeCursor(String cursor, String entityName) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException(decoded);
+            }
+            return Long.valueOf(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+    }
+
+    /**
+     * Generate the {@code Link} header of a keyset page.
+     *
+     * @param uriBuilder the builder of the current request uri.
+     * @param content the content of the page.
+     * @param size the requested page size.
+     * @param idExtractor the function returning the id of an element.
+     * @param <T> the type of the elements.
+     * @return the http headers.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        List<T> content,
+        int size,
+        Function<T, Long> idExtractor
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        StringBuilder link = new StringBuilder();
+        if (!content.isEmpty() && content.size() >= size) {
+            String next = encodeCursor(idExtractor.apply(content.get(content.size() - 1)));
+            link.append(prepareLink(uriBuilder, AFTER_PARAMETER, next, size, "next")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, AFTER_PARAMETER, "", size, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    /**
+     * Generate a {@code Link} header pointing to the next page only, using a raw parameter value.
+     *
+     * @param uriBuilder the builder of the current request uri.
+     * @param parameter the name of the query parameter carrying the position.
+     * @param value the value of the parameter for the next page.
+     * @param size the requested page size.
+     * @return the http headers.
+     */
+    public static HttpHeaders generateNextLinkHttpHeaders(UriComponentsBuilder uriBuilder, String parameter, String value, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, prepareLink(uriBuilder, parameter, value, size, "next"));
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, String parameter, String value, int size, String relType) {
+        String uri = uriBuilder
+            .cloneBuilder()
+            .replaceQueryParam(parameter, value)
+            .replaceQueryParam("size", size)
+            .replaceQueryParam("page")
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+}
@@ -0,0 +1,57 @@
+package com.quattrinh.shop.web.rest.util;
+
+import java.text.MessageFormat;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling pagination of a {@link Slice}.
+ * <p>
+ * Like {@link tech.jhipster.web.util.PaginationUtil} but without {@code X-Total-Count} and {@code last} link, since a
+ * slice does not know how many elements match.
+ */
+public final class SlicePaginationUtil {
+
+    private static final String HEADER_HAS_NEXT_PAGE = "X-Has-Next-Page";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private SlicePaginationUtil() {}
+
+    /**
+     * Generate pagination headers for a Spring Data {@link Slice} object.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice The slice.
+     * @param <T> The type of object.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HEADER_HAS_NEXT_PAGE, Boolean.toString(slice.hasNext()));
+        int pageNumber = slice.getNumber();
+        int pageSize = slice.getSize();
+        StringBuilder link = new StringBuilder();
+        if (slice.hasNext()) {
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next")).append(",");
+        }
+        if (slice.hasPrevious()) {
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev")).append(",");
+        }
+        link.append(prepareLink(uriBuilder, 0, pageSize, "first"));
+        headers.add(HttpHeaders.LINK, link.toString());
+        return headers;
+    }
+
+    private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
+        String uri = uriBuilder
+            .cloneBuilder()
+            .replaceQueryParam("page", pageNumber)
+            .replaceQueryParam("size", pageSize)
+            .toUriString()
+            .replace(",", "%2C")
+            .replace(";", "%3B");
+        return MessageFormat.format(HEADER_LINK_FORMAT, uri, relType);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Rest layer utilities.
+ */
+package com.quattrinh.shop.web.rest.util;
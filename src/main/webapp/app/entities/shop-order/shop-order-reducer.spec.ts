@@ -9,6 +9,7 @@ import reducer, {
   createEntity,
   deleteEntity,
   getEntities,
+  getEntitiesForAdmin,
   getEntity,
   partialUpdateEntity,
   reset,
@@ -130,6 +131,33 @@ describe('Entities reducer tests', () => {
       });
     });
 
+    it('should fetch an admin page with the cursor of the next page', () => {
+      const payload = {
+        data: [{ id: 43 }, { id: 42 }],
+        headers: { link: '<http://localhost/api/shop-orders/admin?before=42&size=2>; rel="next"' },
+      };
+      expect(
+        reducer(undefined, {
+          type: getEntitiesForAdmin.fulfilled.type,
+          payload,
+        }),
+      ).toMatchObject({
+        loading: false,
+        entities: payload.data,
+        links: { next: 42 },
+      });
+    });
+
+    it('should fetch the last admin page without a next cursor', () => {
+      const payload = { data: [{ id: 1 }], headers: {} };
+      expect(
+        reducer(undefined, {
+          type: getEntitiesForAdmin.fulfilled.type,
+          payload,
+        }).links,
+      ).toEqual({ next: undefined });
+    });
+
     it('should fetch a single entity', () => {
       const payload = { data: { 1: 'fake1' } };
       expect(
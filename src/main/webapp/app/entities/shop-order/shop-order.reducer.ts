@@ -45,13 +45,32 @@ export const getEntity = createAsyncThunk(
 
 export const getEntitiesForAdmin = createAsyncThunk(
   'shopOrder/fetch_entity_list_admin',
-  async () => {
-    const requestUrl = `${apiUrl}/admin`;
+  async ({ before, size }: { before?: number; size?: number }) => {
+    const params = new URLSearchParams();
+    if (before !== undefined) params.append('before', before.toString());
+    if (size !== undefined) params.append('size', size.toString());
+    params.append('cacheBuster', new Date().getTime().toString());
+
+    const requestUrl = `${apiUrl}/admin?${params.toString()}`;
     return axios.get<IShopOrder[]>(requestUrl);
   },
   { serializeError: serializeAxiosError },
 );
 
+// Downloads every order at once, only for an explicit export
+export const exportEntitiesForAdmin = () => axios.get<Blob>(`${apiUrl}/admin/export`, { responseType: 'blob' });
+
+// The admin pages carry no total count, only a Link header to the next page, whose "before" cursor is kept
+const parseNextBefore = (link?: string): number | undefined => {
+  const next = link?.split(',').find(part => part.includes('rel="next"'));
+  if (!next) {
+    return undefined;
+  }
+  const url = new URL(next.substring(next.indexOf('<') + 1, next.indexOf('>')), window.location.href);
+  const before = url.searchParams.get('before');
+  return before ? parseInt(before, 10) : undefined;
+};
+
 export const createEntity = createAsyncThunk(
   'shopOrder/create_entity',
   async (entity: IShopOrder, thunkAPI) => {
@@ -119,7 +138,18 @@ export const ShopOrderSlice = createEntitySlice({
         state.updateSuccess = true;
         state.entity = {};
       })
-      .addMatcher(isFulfilled(getEntities, getEntitiesForAdmin), (state, action) => {
+      .addCase(getEntitiesForAdmin.fulfilled, (state, action) => {
+        const { data, headers } = action.payload;
+
+        return {
+          ...state,
+          loading: false,
+          entities: data,
+          totalItems: data.length,
+          links: { next: parseNextBefore(headers.link) },
+        };
+      })
+      .addMatcher(isFulfilled(getEntities), (state, action) => {
         const { data, headers } = action.payload;
 
         return {
@@ -1,7 +1,7 @@
 import React, { useEffect, useState } from 'react';
 import { Container, Row, Col, Card, Button, Badge, Spinner, Alert, Table, Dropdown, Modal, Form } from 'react-bootstrap';
 import { useAppDispatch, useAppSelector } from 'app/config/store';
-import { getEntities, getEntitiesForAdmin, updateStatus } from 'app/entities/shop-order/shop-order.reducer';
+import { exportEntitiesForAdmin, getEntities, getEntitiesForAdmin, updateStatus } from 'app/entities/shop-order/shop-order.reducer';
 import { IShopOrder } from 'app/shared/model/shop-order.model';
 import { IOrderItem } from 'app/shared/model/order-item.model';
 import { OrderStatus } from 'app/shared/model/enumerations/order-status.model';
@@ -20,13 +20,16 @@ const OrderManagement = () => {
   const shopOrderList = useAppSelector(state => state.shopOrder.entities);
   const loading = useAppSelector(state => state.shopOrder.loading);
   const updating = useAppSelector(state => state.shopOrder.updating);
+  const nextBefore: number | undefined = useAppSelector(state => state.shopOrder.links?.next);
 
   const [selectedOrder, setSelectedOrder] = useState<IShopOrder | null>(null);
   const [showStatusModal, setShowStatusModal] = useState(false);
   const [showDetailModal, setShowDetailModal] = useState(false);
   const [newStatus, setNewStatus] = useState<string>('');
-  const [currentPage, setCurrentPage] = useState(1);
+  // The "before" cursor of each page visited so far, undefined for the first page
+  const [cursors, setCursors] = useState<(number | undefined)[]>([undefined]);
   const [itemsPerPage] = useState(10);
+  const [exporting, setExporting] = useState(false);
   const [statusFilter, setStatusFilter] = useState<string>('');
 
   const orderStatuses: OrderStatusLabels = {
@@ -38,10 +41,16 @@ const OrderManagement = () => {
     RETURNED: 'Returned',
   };
 
+  const currentPage = cursors.length;
+
+  const loadCurrentPage = () => {
+    dispatch(getEntitiesForAdmin({ before: cursors[cursors.length - 1], size: itemsPerPage }));
+  };
+
   useEffect(() => {
-    // Use the admin endpoint to get all orders with eager relationships
-    dispatch(getEntitiesForAdmin());
-  }, []);
+    // The admin endpoint pages through the orders with eager relationships, newest first
+    loadCurrentPage();
+  }, [cursors]);
 
   const getStatusBadge = (status: string) => {
     const statusConfig = {
@@ -98,8 +107,8 @@ const OrderManagement = () => {
       setSelectedOrder(null);
       setNewStatus('');
 
-      // Refresh the orders list
-      dispatch(getEntitiesForAdmin());
+      // Refresh the current page
+      loadCurrentPage();
     }
   };
 
@@ -108,7 +117,36 @@ const OrderManagement = () => {
   };
 
   const handleRefreshWrapper = () => {
-    dispatch(getEntitiesForAdmin());
+    loadCurrentPage();
+  };
+
+  const handleNextPage = () => {
+    if (nextBefore !== undefined) {
+      setCursors(prev => [...prev, nextBefore]);
+    }
+  };
+
+  const handlePreviousPage = () => {
+    setCursors(prev => (prev.length > 1 ? prev.slice(0, -1) : prev));
+  };
+
+  const handleExport = async () => {
+    setExporting(true);
+    try {
+      const response = await exportEntitiesForAdmin();
+      const url = URL.createObjectURL(response.data);
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = 'orders.json';
+      link.click();
+      URL.revokeObjectURL(url);
+    } finally {
+      setExporting(false);
+    }
+  };
+
+  const handleExportWrapper = () => {
+    void handleExport();
   };
 
   const getTotalItems = (order: IShopOrder) => {
@@ -184,23 +222,12 @@ const OrderManagement = () => {
     }
   };
 
-  // Filter orders by status
-  const filteredOrders = shopOrderList.filter(order => {
+  // Filter the orders of the current page by status
+  const currentOrders = shopOrderList.filter(order => {
     if (!statusFilter) return true;
     return order.status === statusFilter;
   });
 
-  // Pagination logic
-  const totalPages = Math.ceil(filteredOrders.length / itemsPerPage);
-  const startIndex = (currentPage - 1) * itemsPerPage;
-  const endIndex = startIndex + itemsPerPage;
-  const currentOrders = filteredOrders.slice(startIndex, endIndex);
-
-  // Reset to first page when filter changes
-  useEffect(() => {
-    setCurrentPage(1);
-  }, [statusFilter]);
-
   if (loading) {
     return (
       <Container className="py-5">
@@ -250,6 +277,10 @@ const OrderManagement = () => {
                 <i className="fa fa-refresh me-2"></i>
                 Refresh
               </Button>
+              <Button variant="outline-secondary" onClick={handleExportWrapper} disabled={exporting}>
+                <i className="fa fa-download me-2"></i>
+                Export
+              </Button>
             </div>
           </div>
         </Col>
@@ -264,7 +295,7 @@ const OrderManagement = () => {
                 <i className="fa fa-clock-o fa-2x"></i>
               </div>
               <h4 className="mb-1">{shopOrderList.filter(order => order.status === 'PENDING').length}</h4>
-              <p className="text-muted mb-0">Pending Orders</p>
+              <p className="text-muted mb-0">Pending on this page</p>
             </Card.Body>
           </Card>
         </Col>
@@ -275,7 +306,7 @@ const OrderManagement = () => {
                 <i className="fa fa-truck fa-2x"></i>
               </div>
               <h4 className="mb-1">{shopOrderList.filter(order => order.status === 'SHIPPED').length}</h4>
-              <p className="text-muted mb-0">Shipped Orders</p>
+              <p className="text-muted mb-0">Shipped on this page</p>
             </Card.Body>
           </Card>
         </Col>
@@ -286,7 +317,7 @@ const OrderManagement = () => {
                 <i className="fa fa-check-circle fa-2x"></i>
               </div>
               <h4 className="mb-1">{shopOrderList.filter(order => order.status === 'COMPLETED').length}</h4>
-              <p className="text-muted mb-0">Completed Orders</p>
+              <p className="text-muted mb-0">Completed on this page</p>
             </Card.Body>
           </Card>
         </Col>
@@ -297,7 +328,7 @@ const OrderManagement = () => {
                 <i className="fa fa-shopping-cart fa-2x"></i>
               </div>
               <h4 className="mb-1">{shopOrderList.length}</h4>
-              <p className="text-muted mb-0">Total Orders</p>
+              <p className="text-muted mb-0">Orders on this page</p>
             </Card.Body>
           </Card>
         </Col>
@@ -314,7 +345,7 @@ const OrderManagement = () => {
               </h5>
             </Card.Header>
             <Card.Body className="p-0">
-              {filteredOrders.length === 0 ? (
+              {currentOrders.length === 0 ? (
                 <div className="text-center py-5">
                   <i className="fa fa-shopping-bag fa-3x text-muted mb-3"></i>
                   <h4 className="text-muted">No Orders Found</h4>
@@ -441,35 +472,18 @@ const OrderManagement = () => {
               )}
 
               {/* Pagination */}
-              {filteredOrders.length > itemsPerPage && (
+              {(currentPage > 1 || nextBefore !== undefined) && (
                 <div className="d-flex justify-content-between align-items-center p-3 border-top">
-                  <div className="text-muted">
-                    Showing {startIndex + 1} to {Math.min(endIndex, filteredOrders.length)} of {filteredOrders.length} orders
-                  </div>
+                  <div className="text-muted">Page {currentPage}</div>
                   <nav>
                     <ul className="pagination mb-0">
                       <li className={`page-item ${currentPage === 1 ? 'disabled' : ''}`}>
-                        <button
-                          className="page-link"
-                          onClick={() => setCurrentPage(prev => Math.max(prev - 1, 1))}
-                          disabled={currentPage === 1}
-                        >
+                        <button className="page-link" onClick={handlePreviousPage} disabled={currentPage === 1}>
                           Previous
                         </button>
                       </li>
-                      {Array.from({ length: totalPages }, (_, i) => i + 1).map(page => (
-                        <li key={page} className={`page-item ${page === currentPage ? 'active' : ''}`}>
-                          <button className="page-link" onClick={() => setCurrentPage(page)} style={{ cursor: 'pointer' }}>
-                            {page}
-                          </button>
-                        </li>
-                      ))}
-                      <li className={`page-item ${currentPage === totalPages ? 'disabled' : ''}`}>
-                        <button
-                          className="page-link"
-                          onClick={() => setCurrentPage(prev => Math.min(prev + 1, totalPages))}
-                          disabled={currentPage === totalPages}
-                        >
+                      <li className={`page-item ${nextBefore === undefined ? 'disabled' : ''}`}>
+                        <button className="page-link" onClick={handleNextPage} disabled={nextBefore === undefined}>
                           Next
                         </button>
                       </li>
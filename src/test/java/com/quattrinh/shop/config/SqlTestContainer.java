@@ -0,0 +1,9 @@
+package com.quattrinh.shop.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+
+public interface SqlTestContainer extends InitializingBean, DisposableBean {
+    JdbcDatabaseContainer<?> getTestContainer();
+}
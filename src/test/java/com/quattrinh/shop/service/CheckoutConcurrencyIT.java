@@ -0,0 +1,258 @@
+package com.quattrinh.shop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quattrinh.shop.IntegrationTest;
+import com.quattrinh.shop.domain.Cart;
+import com.quattrinh.shop.domain.CartItem;
+import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.domain.ProductVariant;
+import com.quattrinh.shop.domain.User;
+import com.quattrinh.shop.web.rest.ShopOrderResource.CheckoutRequest;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests of concurrent checkouts of variants with limited stock.
+ * <p>
+ * The elapsed time and throughput of each run are logged, to compare the reservation strategies; the tests only
+ * assert that no stock is oversold and that no checkout deadlocks.
+ */
+@IntegrationTest
+class CheckoutConcurrencyIT {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CheckoutConcurrencyIT.class);
+
+    private static final int STOCK = 5;
+
+    private static final int CHECKOUTS = 12;
+
+    private static final BigDecimal PRICE = new BigDecimal("100000");
+
+    @Autowired
+    private ShopOrderService shopOrderService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Long productId;
+
+    private Long hotVariantId;
+
+    private Long otherVariantId;
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    /**
+     * The cart item of the hot variant of each buyer.
+     */
+    private final List<Long> hotItemIds = new ArrayList<>();
+
+    /**
+     * The cart items of both variants of each buyer, in the order they were added: half of the buyers added the hot
+     * variant first, the other half the other variant first.
+     */
+    private final List<List<Long>> pairedItemIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Checkouts run in their own transactions, so the data must be committed beforehand
+        transactionTemplate.executeWithoutResult(status -> {
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            Product product = new Product().name("Hot product " + suffix).basePrice(PRICE).isActive(true);
+            em.persist(product);
+            ProductVariant hotVariant = createVariant(product, "HOT-" + suffix);
+            ProductVariant otherVariant = createVariant(product, "OTHER-" + suffix);
+            productId = product.getId();
+            hotVariantId = hotVariant.getId();
+            otherVariantId = otherVariant.getId();
+
+            for (int i = 0; i < CHECKOUTS; i++) {
+                User user = new User();
+                user.setLogin("buyer-" + suffix + "-" + i);
+                user.setPassword("$2a$10$" + "a".repeat(53));
+                user.setEmail("buyer-" + suffix + "-" + i + "@localhost");
+                user.setActivated(true);
+                user.setLangKey("en");
+                em.persist(user);
+                Cart cart = new Cart().user(user);
+                em.persist(cart);
+                userIds.add(user.getId());
+                if (i % 2 == 0) {
+                    Long hotItemId = createCartItem(cart, hotVariant);
+                    hotItemIds.add(hotItemId);
+                    pairedItemIds.add(List.of(hotItemId, createCartItem(cart, otherVariant)));
+                } else {
+                    Long otherItemId = createCartItem(cart, otherVariant);
+                    Long hotItemId = createCartItem(cart, hotVariant);
+                    hotItemIds.add(hotItemId);
+                    pairedItemIds.add(List.of(otherItemId, hotItemId));
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        List<Long> variantIds = List.of(hotVariantId, otherVariantId);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> orderIds = em
+                .createQuery("select o.id from ShopOrder o where o.user.id in :userIds", Long.class)
+                .setParameter("userIds", userIds)
+                .getResultList();
+            if (!orderIds.isEmpty()) {
+                em.createQuery("delete from Payment p where p.order.id in :orderIds").setParameter("orderIds", orderIds).executeUpdate();
+                em.createQuery("delete from OrderItem i where i.order.id in :orderIds").setParameter("orderIds", orderIds).executeUpdate();
+                em.createQuery("delete from ShopOrder o where o.id in :orderIds").setParameter("orderIds", orderIds).executeUpdate();
+            }
+            em
+                .createQuery("delete from CartItem i where i.variant.id in :variantIds")
+                .setParameter("variantIds", variantIds)
+                .executeUpdate();
+            em.createQuery("delete from Cart c where c.user.id in :userIds").setParameter("userIds", userIds).executeUpdate();
+            em.createQuery("delete from User u where u.id in :userIds").setParameter("userIds", userIds).executeUpdate();
+            em.createQuery("delete from ProductVariant v where v.id in :variantIds").setParameter("variantIds", variantIds).executeUpdate();
+            em.createQuery("delete from Product p where p.id = :productId").setParameter("productId", productId).executeUpdate();
+        });
+        userIds.clear();
+        hotItemIds.clear();
+        pairedItemIds.clear();
+    }
+
+    @Test
+    void concurrentCheckoutsOfAHotVariantDoNotOversell() throws Exception {
+        List<List<Long>> selections = hotItemIds.stream().map(List::of).toList();
+
+        assertThat(checkoutConcurrently("single variant", selections)).isEqualTo(STOCK);
+
+        assertReservedAsOrdered(hotVariantId);
+    }
+
+    /**
+     * Every buyer selects both variants, half of them in the opposite order: the rows must still be locked in the same
+     * order by every checkout, or two of them could each wait for a row locked by the other.
+     */
+    @Test
+    void concurrentCheckoutsOfVariantsSelectedInOppositeOrdersDoNotDeadlock() throws Exception {
+        assertThat(checkoutConcurrently("two variants in opposite orders", pairedItemIds)).isEqualTo(STOCK);
+
+        assertReservedAsOrdered(hotVariantId);
+        assertReservedAsOrdered(otherVariantId);
+    }
+
+    /**
+     * Start the checkout of every buyer at once, each selecting its own cart items, and log the elapsed time and
+     * throughput once all are done.
+     *
+     * @return the number of checkouts which got their stock.
+     */
+    private int checkoutConcurrently(String description, List<List<Long>> selectedItemIds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>(CHECKOUTS);
+        try {
+            for (int i = 0; i < CHECKOUTS; i++) {
+                CheckoutRequest checkoutRequest = new CheckoutRequest();
+                checkoutRequest.setUserId(userIds.get(i));
+                checkoutRequest.setTotal(PRICE);
+                checkoutRequest.setShippingAddress("1 Test street");
+                checkoutRequest.setPaymentMethod("CASH_ON_DELIVERY");
+                checkoutRequest.setSelectedItemIds(selectedItemIds.get(i));
+                Callable<Boolean> checkout = () -> {
+                    start.await();
+                    try {
+                        shopOrderService.createOrderFromCheckout(checkoutRequest);
+                        return true;
+                    } catch (InsufficientStockException e) {
+                        return false;
+                    }
+                };
+                results.add(executor.submit(checkout));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+
+            // Any other failure, such as a deadlock detected by the database, is rethrown by get
+            int completed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    completed++;
+                }
+            }
+            long elapsed = System.nanoTime() - startTime;
+            LOG.info(
+                "{} concurrent checkouts of {}, {} completed, in {} ms: {} checkouts/s",
+                CHECKOUTS,
+                description,
+                completed,
+                String.format("%.1f", elapsed / 1e6),
+                String.format("%.0f", CHECKOUTS / (elapsed / 1e9))
+            );
+            return completed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertReservedAsOrdered(Long variantId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProductVariant variant = em.find(ProductVariant.class, variantId);
+            long ordered = em
+                .createQuery("select coalesce(sum(i.quantity), 0) from OrderItem i where i.variant.id = :variantId", Long.class)
+                .setParameter("variantId", variantId)
+                .getSingleResult();
+            long remaining = STOCK - ordered;
+
+            assertThat(variant.getStock()).isEqualTo(STOCK);
+            assertThat(variant.getReserved()).isLessThanOrEqualTo(variant.getStock());
+            assertThat((long) variant.getReserved()).isEqualTo(ordered).isEqualTo(variant.getStock() - remaining);
+            assertThat(remaining).isZero();
+        });
+    }
+
+    private ProductVariant createVariant(Product product, String sku) {
+        ProductVariant variant = new ProductVariant()
+            .sku(sku)
+            .price(PRICE)
+            .costPrice(PRICE)
+            .stock(STOCK)
+            .reserved(0)
+            .isActive(true)
+            .product(product);
+        em.persist(variant);
+        return variant;
+    }
+
+    private Long createCartItem(Cart cart, ProductVariant variant) {
+        CartItem cartItem = new CartItem();
+        cartItem.setCart(cart);
+        cartItem.setVariant(variant);
+        cartItem.setQuantity(1);
+        cartItem.setPrice(PRICE);
+        em.persist(cartItem);
+        return cartItem.getId();
+    }
+}
@@ -0,0 +1,149 @@
+package com.quattrinh.shop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quattrinh.shop.IntegrationTest;
+import com.quattrinh.shop.config.ApplicationProperties.Catalog.SearchStrategy;
+import jakarta.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmark of the database search strategies, {@code like}, full-text and trigram, on a generated catalog of
+ * {@value #PRODUCTS} products.
+ * <p>
+ * Tagged {@value #TAG} and only run with the {@code benchmark} Maven profile, since generating the data takes
+ * minutes: {@code ./mvnw verify -Pbenchmark}. The generated products share a random marker in their names and are
+ * deleted afterwards; the other products of the database are searched as well. The timings are logged; the test only
+ * fails when a strategy finds nothing.
+ */
+@IntegrationTest
+@Tag(ProductSearchBenchmarkIT.TAG)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductSearchBenchmarkIT {
+
+    static final String TAG = "benchmark";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSearchBenchmarkIT.class);
+
+    private static final int PRODUCTS = 1_000_000;
+
+    private static final int WARMUP_RUNS = 3;
+
+    private static final int MEASURED_RUNS = 20;
+
+    private static final List<SearchStrategy> STRATEGIES = List.of(SearchStrategy.LIKE, SearchStrategy.FULL_TEXT, SearchStrategy.TRIGRAM);
+
+    /**
+     * Single terms, common or rare, and adjacent terms, which every strategy matches: {@code LIKE} looks for the
+     * search text as a whole.
+     */
+    private static final List<String> QUERIES = List.of("jacket", "handmade", "number 4242", "wool scarf", "leather boots 7");
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String marker;
+
+    @BeforeAll
+    void generateProducts() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        StringBuilder token = new StringBuilder("zq");
+        Random random = new Random();
+        for (int i = 0; i < 10; i++) {
+            token.append((char) ('a' + random.nextInt(26)));
+        }
+        marker = token.toString();
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status ->
+            em
+                .createNativeQuery(
+                    "insert into products (name, description, base_price, is_active) " +
+                    "select :marker || ' ' || " +
+                    "(array['wool', 'linen', 'cotton', 'leather', 'denim', 'silk', 'nylon'])[1 + g % 7] || ' ' || " +
+                    "(array['jacket', 'scarf', 'boots', 'shirt', 'dress', 'coat', 'sneakers', 'hat', 'gloves'])[1 + g % 9] || ' ' || " +
+                    "(g % 100), " +
+                    "(array['Waterproof', 'Warm', 'Light', 'Handmade', 'Classic'])[1 + g % 5] || ' piece number ' || g, " +
+                    "100000 + (g % 50) * 10000, g % 10 <> 0 " +
+                    "from generate_series(1, :count) g"
+                )
+                .setParameter("marker", marker)
+                .setParameter("count", PRODUCTS)
+                .executeUpdate()
+        );
+        transactionTemplate.executeWithoutResult(status -> em.createNativeQuery("analyze products").executeUpdate());
+        LOG.info("Generated {} products in {} s", PRODUCTS, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    @AfterAll
+    void deleteProducts() {
+        transactionTemplate.executeWithoutResult(status ->
+            em.createNativeQuery("delete from products where name like :prefix").setParameter("prefix", marker + " %").executeUpdate()
+        );
+    }
+
+    @Test
+    void compareSearchStrategies() {
+        StringBuilder report = new StringBuilder(String.format("%nSearch strategies on %d products, median / p95 in ms:", PRODUCTS));
+        for (String query : QUERIES) {
+            Map<SearchStrategy, long[]> timings = new EnumMap<>(SearchStrategy.class);
+            for (SearchStrategy strategy : STRATEGIES) {
+                for (int i = 0; i < WARMUP_RUNS; i++) {
+                    search(query, strategy);
+                }
+                long[] runs = new long[MEASURED_RUNS];
+                for (int i = 0; i < MEASURED_RUNS; i++) {
+                    long start = System.nanoTime();
+                    long found = search(query, strategy);
+                    runs[i] = System.nanoTime() - start;
+                    assertThat(found).as("%s results for '%s'", strategy, query).isPositive();
+                }
+                Arrays.sort(runs);
+                timings.put(strategy, runs);
+            }
+            report.append(String.format("%n  %-16s", query));
+            timings.forEach((strategy, runs) ->
+                report.append(
+                    String.format(
+                        "  %s %7.1f / %7.1f",
+                        strategy,
+                        runs[runs.length / 2] / 1e6,
+                        runs[(int) Math.ceil(runs.length * 0.95) - 1] / 1e6
+                    )
+                )
+            );
+        }
+        LOG.info("{}", report);
+    }
+
+    /**
+     * @return the total number of products found, so that the count query is measured as well.
+     */
+    private long search(String query, SearchStrategy strategy) {
+        return productService.findAllWithEagerRelationships(PageRequest.of(0, 20), query, strategy).getTotalElements();
+    }
+}
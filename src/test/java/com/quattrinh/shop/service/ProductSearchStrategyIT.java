@@ -0,0 +1,127 @@
+package com.quattrinh.shop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quattrinh.shop.IntegrationTest;
+import com.quattrinh.shop.config.ApplicationProperties.Catalog.SearchStrategy;
+import com.quattrinh.shop.service.dto.ProductDTO;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests checking that every {@link SearchStrategy} finds the same products on seeded data.
+ * <p>
+ * The seeded products share a random marker token, so that other products of the database never match. Every
+ * strategy matches a single whole term and terms adjacent in the names the same way; all but {@code LIKE}, which
+ * looks for the search text as a whole, also match terms in any order and position. The strategy is passed to each
+ * search, so the shared configuration is left untouched.
+ */
+@IntegrationTest
+class ProductSearchStrategyIT {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String marker;
+
+    private Long jacket;
+
+    private Long jacketLining;
+
+    private Long boots;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productSearchIndex.buildIfNotReady();
+        assertThat(productSearchIndex.isReady()).isTrue();
+
+        StringBuilder token = new StringBuilder("zq");
+        Random random = new Random();
+        for (int i = 0; i < 10; i++) {
+            token.append((char) ('a' + random.nextInt(26)));
+        }
+        marker = token.toString();
+        // Saved through the service, so that the in-memory index is updated once each product is committed
+        jacket = createProduct(marker + " jacket", "Warm winter coat", true);
+        jacketLining = createProduct("Spare " + marker + " jacket lining", "Fits any coat", true);
+        boots = createProduct("Leather boots", "Waterproof, from the " + marker + " collection", true);
+        createProduct(marker + " jacket 2019", "Discontinued", false);
+        createProduct("Wool scarf", "Knitted", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            em.createQuery("delete from Product p where p.id in :ids").setParameter("ids", productIds).executeUpdate()
+        );
+        productIds.forEach(productSearchIndex::remove);
+        productIds.clear();
+    }
+
+    @ParameterizedTest
+    @EnumSource(SearchStrategy.class)
+    void findsActiveProductsMatchingATermInTheNameOrDescription(SearchStrategy strategy) {
+        assertThat(search(marker, strategy)).containsExactlyInAnyOrder(jacket, jacketLining, boots);
+        assertThat(search(marker.toUpperCase(), strategy)).containsExactlyInAnyOrder(jacket, jacketLining, boots);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SearchStrategy.class)
+    void findsActiveProductsMatchingEveryTerm(SearchStrategy strategy) {
+        assertThat(search(marker + " jacket", strategy)).containsExactlyInAnyOrder(jacket, jacketLining);
+        assertThat(search(marker + " scarf", strategy)).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SearchStrategy.class, mode = Mode.EXCLUDE, names = "LIKE")
+    void findsActiveProductsMatchingEveryTermInAnyOrderAndPosition(SearchStrategy strategy) {
+        Long tShirt = createProduct(marker + " cotton t-shirt", "Short sleeves", true);
+
+        assertThat(search("jacket " + marker, strategy)).containsExactlyInAnyOrder(jacket, jacketLining);
+        assertThat(search(marker + " lining", strategy)).containsExactly(jacketLining);
+        assertThat(search("lining coat " + marker, strategy)).containsExactly(jacketLining);
+        assertThat(search("t-shirt " + marker, strategy)).containsExactly(tShirt);
+        assertThat(search("shirt " + marker + " cotton", strategy)).containsExactly(tShirt);
+    }
+
+    private List<Long> search(String query, SearchStrategy strategy) {
+        return productService
+            .findAllWithEagerRelationships(PageRequest.of(0, 20), query, strategy)
+            .map(ProductDTO::getId)
+            .getContent();
+    }
+
+    private Long createProduct(String name, String description, boolean active) {
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setName(name);
+        productDTO.setDescription(description);
+        productDTO.setBasePrice(new BigDecimal("100000"));
+        productDTO.setIsActive(active);
+        Long id = productService.save(productDTO).getId();
+        productIds.add(id);
+        return id;
+    }
+}
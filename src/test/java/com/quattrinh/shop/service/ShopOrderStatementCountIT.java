@@ -0,0 +1,166 @@
+package com.quattrinh.shop.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.quattrinh.shop.IntegrationTest;
+import com.quattrinh.shop.domain.OrderItem;
+import com.quattrinh.shop.domain.Payment;
+import com.quattrinh.shop.domain.Product;
+import com.quattrinh.shop.domain.ProductVariant;
+import com.quattrinh.shop.domain.ShopOrder;
+import com.quattrinh.shop.domain.User;
+import com.quattrinh.shop.domain.enumeration.OrderStatus;
+import com.quattrinh.shop.domain.enumeration.PaymentMethod;
+import com.quattrinh.shop.domain.enumeration.PaymentStatus;
+import com.quattrinh.shop.management.JdbcStatementCounter;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests checking that the admin order pages run a constant number of SQL statements, whatever the number
+ * of orders on the page.
+ */
+@IntegrationTest
+class ShopOrderStatementCountIT {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final BigDecimal PRICE = new BigDecimal("100000");
+
+    @Autowired
+    private ShopOrderService shopOrderService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+
+    private Long productId;
+
+    private Long variantId;
+
+    private final List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            User user = new User();
+            user.setLogin("admin-page-" + suffix);
+            user.setPassword("$2a$10$" + "a".repeat(53));
+            user.setEmail("admin-page-" + suffix + "@localhost");
+            user.setActivated(true);
+            user.setLangKey("en");
+            em.persist(user);
+            Product product = new Product().name("Admin page product " + suffix).basePrice(PRICE).isActive(true);
+            em.persist(product);
+            ProductVariant variant = new ProductVariant()
+                .sku("ADMIN-" + suffix)
+                .price(PRICE)
+                .costPrice(PRICE)
+                .stock(100)
+                .reserved(0)
+                .isActive(true)
+                .product(product);
+            em.persist(variant);
+            userId = user.getId();
+            productId = product.getId();
+            variantId = variant.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!orderIds.isEmpty()) {
+                em.createQuery("delete from Payment p where p.order.id in :orderIds").setParameter("orderIds", orderIds).executeUpdate();
+                em.createQuery("delete from OrderItem i where i.order.id in :orderIds").setParameter("orderIds", orderIds).executeUpdate();
+                em.createQuery("delete from ShopOrder o where o.id in :orderIds").setParameter("orderIds", orderIds).executeUpdate();
+            }
+            em.createQuery("delete from User u where u.id = :userId").setParameter("userId", userId).executeUpdate();
+            em.createQuery("delete from ProductVariant v where v.id = :variantId").setParameter("variantId", variantId).executeUpdate();
+            em.createQuery("delete from Product p where p.id = :productId").setParameter("productId", productId).executeUpdate();
+        });
+        orderIds.clear();
+    }
+
+    @Test
+    void adminOrderPageRunsAConstantNumberOfStatements() {
+        createOrders(2);
+        long fewOrders = countStatements(() -> shopOrderService.findAllForAdmin(null, PAGE_SIZE));
+
+        createOrders(PAGE_SIZE);
+        long fullPage = countStatements(() -> shopOrderService.findAllForAdmin(null, PAGE_SIZE));
+
+        assertThat(fullPage).isEqualTo(fewOrders);
+    }
+
+    @Test
+    void orderPageLoadsPaymentsWithTheOrders() {
+        PageRequest pageRequest = PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "id"));
+        createOrders(2);
+        long fewOrders = countStatements(() -> shopOrderService.findAll(pageRequest));
+
+        createOrders(PAGE_SIZE);
+        long fullPage = countStatements(() -> shopOrderService.findAll(pageRequest));
+
+        assertThat(fullPage).isEqualTo(fewOrders);
+    }
+
+    private long countStatements(Runnable query) {
+        JdbcStatementCounter.begin();
+        query.run();
+        return JdbcStatementCounter.end();
+    }
+
+    /**
+     * Create orders of one item, with a payment, newer than all the existing ones.
+     */
+    private void createOrders(int count) {
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = em.find(User.class, userId);
+            ProductVariant variant = em.find(ProductVariant.class, variantId);
+            for (int i = 0; i < count; i++) {
+                ShopOrder order = new ShopOrder();
+                order.setUser(user);
+                order.setStatus(OrderStatus.PENDING);
+                order.setTotal(PRICE);
+                order.setShippingAddress("1 Test street");
+                order.setCreatedAt(Instant.now());
+                order.setUpdatedAt(Instant.now());
+                em.persist(order);
+                OrderItem orderItem = new OrderItem();
+                orderItem.setVariant(variant);
+                orderItem.setQuantity(1);
+                orderItem.setPrice(PRICE);
+                order.addOrderItem(orderItem);
+                em.persist(orderItem);
+                Payment payment = new Payment();
+                payment.setOrder(order);
+                payment.setAmount(PRICE);
+                payment.setMethod(PaymentMethod.CASH_ON_DELIVERY);
+                payment.setStatus(PaymentStatus.PENDING);
+                em.persist(payment);
+                orderIds.add(order.getId());
+            }
+        });
+    }
+}